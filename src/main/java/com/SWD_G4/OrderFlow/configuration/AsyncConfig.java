@@ -0,0 +1,51 @@
+package com.SWD_G4.OrderFlow.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+    
+    public static final String OUTBOX_EXECUTOR = "outboxExecutor";
+    public static final String CART_REPRICE_EXECUTOR = "cartRepriceExecutor";
+    
+    /**
+     * Executor for after-commit outbox dispatch. Overflowing triggers are dropped:
+     * the scheduled relay poll picks up anything they would have delivered.
+     */
+    @Bean(name = OUTBOX_EXECUTOR)
+    public Executor outboxExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("outbox-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * Executor for repricing carts after a product price change. One thread, so reprices run one at a
+     * time; a full queue makes the saving thread reprice itself rather than drop the change.
+     */
+    @Bean(name = CART_REPRICE_EXECUTOR)
+    public Executor cartRepriceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("cart-reprice-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
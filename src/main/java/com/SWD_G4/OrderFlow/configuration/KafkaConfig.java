@@ -1,10 +1,12 @@
 package com.SWD_G4.OrderFlow.configuration;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
@@ -22,6 +24,26 @@ public class KafkaConfig {
     public static final String NOTIFICATION_TOPIC = "order-notifications";
     public static final String FLORIST_NOTIFICATION_TOPIC = "florist-notifications";
     public static final String ORDER_STATUS_TOPIC = "order-status-updates";
+    public static final String ORDER_EVENTS_TOPIC = "order-events";
+    public static final String CART_EVENTS_TOPIC = "cart-events";
+    
+    @Value("${app.orders.events.partitions:12}")
+    private int orderEventPartitions;
+    
+    @Value("${app.orders.events.replicas:1}")
+    private int orderEventReplicas;
+    
+    @Value("${app.cart.events.partitions:6}")
+    private int cartEventPartitions;
+    
+    @Value("${app.orders.events.compression:lz4}")
+    private String orderEventCompression;
+    
+    @Value("${app.orders.events.linger-ms:20}")
+    private int orderEventLingerMs;
+    
+    @Value("${app.orders.events.batch-size-bytes:65536}")
+    private int orderEventBatchSize;
     
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
@@ -40,5 +62,49 @@ public class KafkaConfig {
     public KafkaTemplate<String, Object> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+    
+    /**
+     * Producer for the order event stream. Payloads arrive pre-serialized from the outbox; the producer
+     * lingers briefly so a relay batch goes out as few compressed record batches. Idempotence with
+     * acks=all keeps per-partition order across retries.
+     */
+    @Bean
+    public ProducerFactory<String, String> orderEventProducerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, orderEventCompression);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, orderEventLingerMs);
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, orderEventBatchSize);
+        return new DefaultKafkaProducerFactory<>(configProps);
+    }
+    
+    @Bean
+    public KafkaTemplate<String, String> orderEventKafkaTemplate() {
+        return new KafkaTemplate<>(orderEventProducerFactory());
+    }
+    
+    @Bean
+    public NewTopic orderEventsTopic() {
+        return TopicBuilder.name(ORDER_EVENTS_TOPIC)
+                .partitions(orderEventPartitions)
+                .replicas(orderEventReplicas)
+                .build();
+    }
+    
+    /**
+     * Cart events share the order event producer; they are few and only sent by the outbox relay.
+     */
+    @Bean
+    public NewTopic cartEventsTopic() {
+        return TopicBuilder.name(CART_EVENTS_TOPIC)
+                .partitions(cartEventPartitions)
+                .replicas(orderEventReplicas)
+                .build();
+    }
 }
 
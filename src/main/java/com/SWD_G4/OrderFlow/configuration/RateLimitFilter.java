@@ -0,0 +1,149 @@
+package com.SWD_G4.OrderFlow.configuration;
+
+import java.io.IOException;
+import java.util.Set;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.SWD_G4.OrderFlow.dto.request.ApiResponse;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import com.SWD_G4.OrderFlow.service.CheckoutAdmissionLimiter;
+import com.SWD_G4.OrderFlow.service.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Admission control for cart mutations and checkout. Runs after JWT authentication:
+ * every write to /api/cart, /api/guest-cart, /api/orders and /api/flash-sale takes a token from the caller's
+ * user and IP buckets (guest carts have only the IP bucket), and checkout (POST /api/orders) additionally needs a concurrency permit. Rejected requests get
+ * 429 with Retry-After before any controller or DB work happens.
+ * The client IP is taken from X-Forwarded-For only when the request comes from a trusted proxy
+ * (app.rate-limit.trusted-proxies), so clients cannot pick their own IP bucket.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String CART_PATH = "/api/cart";
+    private static final String GUEST_CART_PATH = "/api/guest-cart";
+    private static final String ORDERS_PATH = "/api/orders";
+    private static final String FLASH_SALE_PATH = "/api/flash-sale";
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final RateLimiter rateLimiter;
+    private final CheckoutAdmissionLimiter checkoutAdmissionLimiter;
+    private final Set<String> trustedProxies;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public RateLimitFilter(RateLimiter rateLimiter, CheckoutAdmissionLimiter checkoutAdmissionLimiter,
+                           Set<String> trustedProxies) {
+        this.rateLimiter = rateLimiter;
+        this.checkoutAdmissionLimiter = checkoutAdmissionLimiter;
+        this.trustedProxies = trustedProxies;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+        String path = path(request);
+        return !path.startsWith(CART_PATH) && !path.startsWith(GUEST_CART_PATH)
+                && !path.startsWith(ORDERS_PATH) && !path.startsWith(FLASH_SALE_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String clientIp = clientIp(request);
+        long waitMs = rateLimiter.tryAcquire(RateLimiter.Scope.IP, clientIp);
+        String username = currentUsername();
+        if (waitMs == 0 && username != null) {
+            waitMs = rateLimiter.tryAcquire(RateLimiter.Scope.USER, username);
+        }
+        if (waitMs > 0) {
+            log.debug("Rate limited {} {} (user {}, ip {})", request.getMethod(), request.getRequestURI(),
+                    username, clientIp);
+            reject(response, ErrorCode.TOO_MANY_REQUESTS, waitMs);
+            return;
+        }
+
+        if (!isCheckout(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!checkoutAdmissionLimiter.tryAdmit()) {
+            reject(response, ErrorCode.CHECKOUT_OVERLOADED, 1000);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            checkoutAdmissionLimiter.release();
+        }
+    }
+
+    private boolean isCheckout(HttpServletRequest request) {
+        return HttpMethod.POST.matches(request.getMethod()) && ORDERS_PATH.equals(path(request));
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * The remote address, or, behind trusted proxies, the right-most X-Forwarded-For entry that is
+     * not itself a trusted proxy (entries further left are supplied by the client and not trusted).
+     */
+    private String clientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        String forwardedFor = request.getHeader(FORWARDED_FOR);
+        if (forwardedFor == null || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !trustedProxies.contains(hop)) {
+                return hop;
+            }
+        }
+        return remoteAddr;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private void reject(HttpServletResponse response, ErrorCode errorCode, long waitMs) throws IOException {
+        response.setStatus(errorCode.getStatusCode().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        // Retry-After is in whole seconds; round up so clients never retry too early
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (waitMs + 999) / 1000)));
+
+        ApiResponse<?> apiResponse = ApiResponse.builder()
+                .code(errorCode.getCode())
+                .message(errorCode.getMessage())
+                .build();
+
+        response.getWriter().write(objectMapper.writeValueAsString(apiResponse));
+        response.flushBuffer();
+    }
+}
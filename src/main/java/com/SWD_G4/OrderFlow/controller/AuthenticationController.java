@@ -7,9 +7,13 @@ import com.SWD_G4.OrderFlow.dto.response.ApiResponse;
 import com.SWD_G4.OrderFlow.dto.response.AuthenticationResponse;
 import com.SWD_G4.OrderFlow.dto.response.IntrospectResponse;
 import com.SWD_G4.OrderFlow.service.AuthenticationService;
+import com.SWD_G4.OrderFlow.service.GuestCartService;
+import com.SWD_G4.OrderFlow.service.GuestCartToken;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -23,14 +27,30 @@ import java.text.ParseException;
 public class AuthenticationController {
     
     private final AuthenticationService authenticationService;
+    private final GuestCartService guestCartService;
+    private final GuestCartToken guestCartToken;
     
     @PostMapping("/token")
     public ResponseEntity<ApiResponse<AuthenticationResponse>> authenticate(
-            @Valid @RequestBody AuthenticationRequest request) {
+            @Valid @RequestBody AuthenticationRequest request,
+            @CookieValue(value = GuestCartToken.COOKIE_NAME, required = false) String guestCartCookie) {
         try {
             AuthenticationResponse response = authenticationService.authenticate(request);
             
-            return ResponseEntity.ok(ApiResponse.<AuthenticationResponse>builder()
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            String guestId = guestCartToken.verify(guestCartCookie);
+            if (guestId != null && mergeGuestCart(request.getUsername(), guestId)) {
+                builder.header(HttpHeaders.SET_COOKIE, ResponseCookie.from(GuestCartToken.COOKIE_NAME, "")
+                        .httpOnly(true)
+                        .secure(true)
+                        .sameSite("Lax")
+                        .path("/")
+                        .maxAge(0)
+                        .build()
+                        .toString());
+            }
+            
+            return builder.body(ApiResponse.<AuthenticationResponse>builder()
                     .code(1000)
                     .message("Authentication successful")
                     .result(response)
@@ -41,6 +61,17 @@ public class AuthenticationController {
         }
     }
     
+    private boolean mergeGuestCart(String username, String guestId) {
+        // A failed merge must not fail the login; the cookie is kept so the next login can retry
+        try {
+            guestCartService.mergeIntoUserCart(username, guestId);
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Failed to merge guest cart into cart of user {}", username, e);
+            return false;
+        }
+    }
+    
     @PostMapping("/introspect")
     public ResponseEntity<ApiResponse<IntrospectResponse>> introspect(
             @Valid @RequestBody IntrospectRequest request) throws JOSEException, ParseException {
@@ -1,20 +1,26 @@
 package com.SWD_G4.OrderFlow.controller;
 
 import com.SWD_G4.OrderFlow.dto.request.AddToCartRequest;
+import com.SWD_G4.OrderFlow.dto.request.CartBatchRequest;
 import com.SWD_G4.OrderFlow.dto.request.UpdateCartItemRequest;
 import com.SWD_G4.OrderFlow.dto.response.ApiResponse;
 import com.SWD_G4.OrderFlow.dto.response.CartResponse;
 import com.SWD_G4.OrderFlow.entity.User;
 import com.SWD_G4.OrderFlow.repository.UserRepository;
+import com.SWD_G4.OrderFlow.service.CartMutationLock;
 import com.SWD_G4.OrderFlow.service.CartService;
+import com.SWD_G4.OrderFlow.service.HotCartService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/api/cart")
 @RequiredArgsConstructor
@@ -22,6 +28,8 @@ import org.springframework.web.bind.annotation.*;
 public class CartController {
     
     private final CartService cartService;
+    private final HotCartService hotCartService;
+    private final CartMutationLock cartMutationLock;
     private final UserRepository userRepository;
     
     private User getCurrentUser(Authentication authentication) {
@@ -31,11 +39,24 @@ public class CartController {
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
     }
     
+    // A cart repriced between read and write fails the version check; run the edit once more on
+    // the fresh rows (a second conflict surfaces as 409)
+    private static CartResponse retryOnConflict(Supplier<CartResponse> mutation) {
+        try {
+            return mutation.get();
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Cart changed concurrently, retrying: {}", e.getMessage());
+            return mutation.get();
+        }
+    }
+    
     @GetMapping
     public ResponseEntity<ApiResponse<CartResponse>> getCart(Authentication authentication) {
         User user = getCurrentUser(authentication);
         
-        CartResponse cart = cartService.getCart(user);
+        CartResponse cart = hotCartService.isEnabled()
+                ? hotCartService.getCart(user)
+                : cartService.getCart(user);
         
         return ResponseEntity.ok(ApiResponse.<CartResponse>builder()
                 .code(1000)
@@ -50,7 +71,10 @@ public class CartController {
             Authentication authentication) {
         User user = getCurrentUser(authentication);
         
-        CartResponse cart = cartService.addToCart(user, request);
+        // Mutations of one user's cart run one at a time, each in its own transaction
+        CartResponse cart = cartMutationLock.withUserLock(user.getId(), () -> hotCartService.isEnabled()
+                ? hotCartService.addToCart(user, request)
+                : retryOnConflict(() -> cartService.addToCart(user, request)));
         
         return ResponseEntity.ok(ApiResponse.<CartResponse>builder()
                 .code(1000)
@@ -59,6 +83,24 @@ public class CartController {
                 .build());
     }
     
+    @PatchMapping
+    public ResponseEntity<ApiResponse<CartResponse>> applyBatch(
+            @Valid @RequestBody CartBatchRequest request,
+            Authentication authentication) {
+        User user = getCurrentUser(authentication);
+        
+        // Operations are identified by product id and applied in order, all or nothing
+        CartResponse cart = cartMutationLock.withUserLock(user.getId(), () -> hotCartService.isEnabled()
+                ? hotCartService.applyBatch(user, request.getOperations())
+                : retryOnConflict(() -> cartService.applyBatch(user, request.getOperations())));
+        
+        return ResponseEntity.ok(ApiResponse.<CartResponse>builder()
+                .code(1000)
+                .message("Cart updated successfully")
+                .result(cart)
+                .build());
+    }
+    
     @PutMapping("/items/{cartItemId}")
     public ResponseEntity<ApiResponse<CartResponse>> updateCartItem(
             @PathVariable Long cartItemId,
@@ -66,7 +108,10 @@ public class CartController {
             Authentication authentication) {
         User user = getCurrentUser(authentication);
         
-        CartResponse cart = cartService.updateCartItem(user, cartItemId, request);
+        // With the Redis cart store, items are identified by product id
+        CartResponse cart = cartMutationLock.withUserLock(user.getId(), () -> hotCartService.isEnabled()
+                ? hotCartService.updateCartItem(user, cartItemId, request)
+                : retryOnConflict(() -> cartService.updateCartItem(user, cartItemId, request)));
         
         return ResponseEntity.ok(ApiResponse.<CartResponse>builder()
                 .code(1000)
@@ -81,7 +126,9 @@ public class CartController {
             Authentication authentication) {
         User user = getCurrentUser(authentication);
         
-        CartResponse cart = cartService.removeFromCart(user, cartItemId);
+        CartResponse cart = cartMutationLock.withUserLock(user.getId(), () -> hotCartService.isEnabled()
+                ? hotCartService.removeFromCart(user, cartItemId)
+                : retryOnConflict(() -> cartService.removeFromCart(user, cartItemId)));
         
         return ResponseEntity.ok(ApiResponse.<CartResponse>builder()
                 .code(1000)
@@ -94,7 +141,13 @@ public class CartController {
     public ResponseEntity<ApiResponse<Void>> clearCart(Authentication authentication) {
         User user = getCurrentUser(authentication);
         
-        cartService.clearCart(user);
+        cartMutationLock.runWithUserLock(user.getId(), () -> {
+            if (hotCartService.isEnabled()) {
+                hotCartService.clearCart(user);
+            } else {
+                cartService.clearCart(user);
+            }
+        });
         
         return ResponseEntity.ok(ApiResponse.<Void>builder()
                 .code(1000)
@@ -0,0 +1,67 @@
+package com.SWD_G4.OrderFlow.controller;
+
+import com.SWD_G4.OrderFlow.dto.request.FlashSaleOrderRequest;
+import com.SWD_G4.OrderFlow.dto.response.ApiResponse;
+import com.SWD_G4.OrderFlow.dto.response.FlashSaleOrderResponse;
+import com.SWD_G4.OrderFlow.entity.Money;
+import com.SWD_G4.OrderFlow.entity.User;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import com.SWD_G4.OrderFlow.repository.UserRepository;
+import com.SWD_G4.OrderFlow.service.FlashSaleSequencer;
+import com.SWD_G4.OrderFlow.service.OrderService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/flash-sale")
+@RequiredArgsConstructor
+@Slf4j
+public class FlashSaleController {
+    
+    private final FlashSaleSequencer flashSaleSequencer;
+    private final OrderService orderService;
+    private final UserRepository userRepository;
+    
+    private User extractUserFromAuthentication(Authentication authentication) {
+        Jwt jwt = (Jwt) authentication.getPrincipal();
+        String username = jwt.getSubject();
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+    }
+    
+    /**
+     * Buy a flash-sale product directly (no cart). 202 means the stock is yours and the order is being written.
+     */
+    @PostMapping("/products/{productId}/orders")
+    public ResponseEntity<ApiResponse<FlashSaleOrderResponse>> placeOrder(
+            @PathVariable Long productId,
+            @Valid @RequestBody FlashSaleOrderRequest request,
+            Authentication authentication) {
+        User user = extractUserFromAuthentication(authentication);
+        String shippingAddress = orderService.resolveShippingAddress(user, request.getShippingAddress());
+        
+        FlashSaleSequencer.Allocation allocation = flashSaleSequencer.allocate(user.getId(), productId,
+                request.getQuantity(), request.getPaymentMethod(), shippingAddress, request.getNotes());
+        
+        FlashSaleOrderResponse response = FlashSaleOrderResponse.builder()
+                .orderNumber(allocation.orderNumber())
+                .productId(allocation.productId())
+                .quantity(allocation.quantity())
+                .unitPrice(allocation.unitPrice())
+                .totalAmount(Money.of(allocation.unitPrice()).times(allocation.quantity()).toBigDecimal())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.<FlashSaleOrderResponse>builder()
+                .code(1000)
+                .message("Flash sale order accepted")
+                .result(response)
+                .build());
+    }
+}
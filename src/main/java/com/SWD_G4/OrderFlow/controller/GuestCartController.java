@@ -0,0 +1,115 @@
+package com.SWD_G4.OrderFlow.controller;
+
+import com.SWD_G4.OrderFlow.dto.request.AddToCartRequest;
+import com.SWD_G4.OrderFlow.dto.request.UpdateCartItemRequest;
+import com.SWD_G4.OrderFlow.dto.response.ApiResponse;
+import com.SWD_G4.OrderFlow.dto.response.CartResponse;
+import com.SWD_G4.OrderFlow.service.GuestCartService;
+import com.SWD_G4.OrderFlow.service.GuestCartStore;
+import com.SWD_G4.OrderFlow.service.GuestCartToken;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Cart for visitors who are not logged in. The cart is found through the signed GUEST_CART cookie,
+ * which the first write issues and every write re-issues, so the cookie lives as long as the cart's
+ * sliding TTL; items are identified by product id.
+ */
+@RestController
+@RequestMapping("/api/guest-cart")
+@RequiredArgsConstructor
+@Slf4j
+public class GuestCartController {
+
+    private final GuestCartService guestCartService;
+    private final GuestCartToken guestCartToken;
+    private final GuestCartStore guestCartStore;
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<CartResponse>> getCart(
+            @CookieValue(value = GuestCartToken.COOKIE_NAME, required = false) String cookie) {
+        CartResponse cart = guestCartService.getCart(guestCartToken.verify(cookie));
+
+        return ResponseEntity.ok(ApiResponse.<CartResponse>builder()
+                .code(1000)
+                .message("Get cart successfully")
+                .result(cart)
+                .build());
+    }
+
+    @PostMapping("/add")
+    public ResponseEntity<ApiResponse<CartResponse>> addToCart(
+            @Valid @RequestBody AddToCartRequest request,
+            @CookieValue(value = GuestCartToken.COOKIE_NAME, required = false) String cookie) {
+        String guestId = guestCartToken.verify(cookie);
+        String cookieValue = cookie;
+        if (guestId == null) {
+            GuestCartToken.Issued token = guestCartToken.issue();
+            guestId = token.guestId();
+            cookieValue = token.cookieValue();
+        }
+
+        CartResponse cart = guestCartService.addToCart(guestId, request);
+
+        return withCartCookie(cookieValue).body(ApiResponse.<CartResponse>builder()
+                .code(1000)
+                .message("Product added to cart successfully")
+                .result(cart)
+                .build());
+    }
+
+    @PutMapping("/items/{productId}")
+    public ResponseEntity<ApiResponse<CartResponse>> updateCartItem(
+            @PathVariable Long productId,
+            @Valid @RequestBody UpdateCartItemRequest request,
+            @CookieValue(value = GuestCartToken.COOKIE_NAME, required = false) String cookie) {
+        CartResponse cart = guestCartService.updateCartItem(guestCartToken.verify(cookie), productId, request);
+
+        return withCartCookie(cookie).body(ApiResponse.<CartResponse>builder()
+                .code(1000)
+                .message("Cart item updated successfully")
+                .result(cart)
+                .build());
+    }
+
+    @DeleteMapping("/items/{productId}")
+    public ResponseEntity<ApiResponse<CartResponse>> removeFromCart(
+            @PathVariable Long productId,
+            @CookieValue(value = GuestCartToken.COOKIE_NAME, required = false) String cookie) {
+        CartResponse cart = guestCartService.removeFromCart(guestCartToken.verify(cookie), productId);
+
+        return withCartCookie(cookie).body(ApiResponse.<CartResponse>builder()
+                .code(1000)
+                .message("Product removed from cart successfully")
+                .result(cart)
+                .build());
+    }
+
+    @DeleteMapping("/clear")
+    public ResponseEntity<ApiResponse<Void>> clearCart(
+            @CookieValue(value = GuestCartToken.COOKIE_NAME, required = false) String cookie) {
+        guestCartService.clearCart(guestCartToken.verify(cookie));
+
+        return ResponseEntity.ok(ApiResponse.<Void>builder()
+                .code(1000)
+                .message("Cart cleared successfully")
+                .build());
+    }
+
+    // Writes slide the cart's TTL, so they renew the cookie's max-age to match
+    private ResponseEntity.BodyBuilder withCartCookie(String value) {
+        ResponseCookie cookie = ResponseCookie.from(GuestCartToken.COOKIE_NAME, value)
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("Lax")
+                .path("/")
+                .maxAge(guestCartStore.ttl())
+                .build();
+        return ResponseEntity.ok().header(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+}
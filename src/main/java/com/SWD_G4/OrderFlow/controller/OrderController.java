@@ -1,23 +1,38 @@
 package com.SWD_G4.OrderFlow.controller;
 
+import com.SWD_G4.OrderFlow.dto.request.BulkOrderStatusRequest;
 import com.SWD_G4.OrderFlow.dto.request.CreateOrderRequest;
+import com.SWD_G4.OrderFlow.dto.request.OrderExportFormat;
+import com.SWD_G4.OrderFlow.dto.request.OrderFeedFilter;
 import com.SWD_G4.OrderFlow.dto.response.ApiResponse;
+import com.SWD_G4.OrderFlow.dto.response.BulkOrderStatusResponse;
+import com.SWD_G4.OrderFlow.dto.response.OrderFeedResponse;
 import com.SWD_G4.OrderFlow.dto.response.OrderResponse;
 import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.PaymentMethod;
 import com.SWD_G4.OrderFlow.entity.User;
 import com.SWD_G4.OrderFlow.exception.AppException;
 import com.SWD_G4.OrderFlow.exception.ErrorCode;
 import com.SWD_G4.OrderFlow.repository.UserRepository;
+import com.SWD_G4.OrderFlow.service.CartMutationLock;
+import com.SWD_G4.OrderFlow.service.GroupCommitCheckoutPipeline;
+import com.SWD_G4.OrderFlow.service.IdempotencyService;
 import com.SWD_G4.OrderFlow.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -25,7 +40,13 @@ import java.util.List;
 @Slf4j
 public class OrderController {
     
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final GroupCommitCheckoutPipeline checkoutPipeline;
+    private final CartMutationLock cartMutationLock;
     private final UserRepository userRepository;
     
     private User extractUserFromAuthentication(Authentication authentication) {
@@ -35,13 +56,31 @@ public class OrderController {
                 .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
     }
     
+    private void requireFlorist(User user) {
+        boolean isFlorist = user.getRoles() != null && 
+                user.getRoles().stream()
+                        .anyMatch(role -> "FLORIST".equals(role.getName()));
+        
+        if (!isFlorist) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+    }
+    
     @PostMapping
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         User user = extractUserFromAuthentication(authentication);
         
-        OrderResponse order = orderService.createOrder(user, request);
+        // Retries with the same Idempotency-Key replay the first response instead of creating another order
+        // With group commit enabled the checkout shares a transaction with concurrent ones.
+        // The cart lock is held until the checkout has committed, so the idle-cart flush and cart edits
+        // cannot write the same cart rows meanwhile
+        OrderResponse order = idempotencyService.execute("orders:create:" + user.getId(), idempotencyKey,
+                OrderResponse.class, () -> cartMutationLock.withUserLock(user.getId(), () -> checkoutPipeline.isEnabled()
+                        ? checkoutPipeline.checkout(user, request)
+                        : orderService.createOrder(user, request)));
         
         return ResponseEntity.ok(ApiResponse.<OrderResponse>builder()
                 .code(1000)
@@ -53,10 +92,12 @@ public class OrderController {
     @PostMapping("/{orderId}/confirm-cod")
     public ResponseEntity<ApiResponse<OrderResponse>> confirmCODOrder(
             @PathVariable Long orderId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         User user = extractUserFromAuthentication(authentication);
         
-        OrderResponse order = orderService.confirmCODOrder(user, orderId);
+        OrderResponse order = idempotencyService.execute("orders:confirm-cod:" + user.getId() + ":" + orderId,
+                idempotencyKey, OrderResponse.class, () -> orderService.confirmCODOrder(user, orderId));
         
         return ResponseEntity.ok(ApiResponse.<OrderResponse>builder()
                 .code(1000)
@@ -73,7 +114,11 @@ public class OrderController {
         
         OrderResponse order = orderService.getOrder(user, orderId);
         
-        return ResponseEntity.ok(ApiResponse.<OrderResponse>builder()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (order.getVersion() != null) {
+            response.eTag(String.valueOf(order.getVersion()));
+        }
+        return response.body(ApiResponse.<OrderResponse>builder()
                 .code(1000)
                 .message("Get order successfully")
                 .result(order)
@@ -81,10 +126,12 @@ public class OrderController {
     }
     
     @GetMapping
-    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrders(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrders(
+            @RequestParam(required = false, defaultValue = "false") boolean includeHistory,
+            Authentication authentication) {
         User user = extractUserFromAuthentication(authentication);
         
-        List<OrderResponse> orders = orderService.getUserOrders(user);
+        List<OrderResponse> orders = orderService.getUserOrders(user, includeHistory);
         
         return ResponseEntity.ok(ApiResponse.<List<OrderResponse>>builder()
                 .code(1000)
@@ -93,23 +140,104 @@ public class OrderController {
                 .build());
     }
     
+    @GetMapping("/feed")
+    public ResponseEntity<ApiResponse<OrderFeedResponse>> getOrderFeed(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) PaymentMethod paymentMethod,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size,
+            Authentication authentication) {
+        User user = extractUserFromAuthentication(authentication);
+        requireFlorist(user);
+        
+        OrderFeedFilter filter = OrderFeedFilter.builder()
+                .status(status)
+                .paymentMethod(paymentMethod)
+                .from(from)
+                .to(to)
+                .build();
+        OrderFeedResponse feed = orderService.getOrderFeed(filter, cursor, size);
+        
+        return ResponseEntity.ok(ApiResponse.<OrderFeedResponse>builder()
+                .code(1000)
+                .message("Get order feed successfully")
+                .result(feed)
+                .build());
+    }
+    
+    /**
+     * Stream the filtered orders as NDJSON or CSV. Rows go from a forward-only cursor straight
+     * to the response, so exports of any size run in constant memory.
+     */
+    @GetMapping("/feed/export")
+    public ResponseEntity<StreamingResponseBody> exportOrderFeed(
+            @RequestParam(required = false) Order.OrderStatus status,
+            @RequestParam(required = false) PaymentMethod paymentMethod,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false, defaultValue = "NDJSON") OrderExportFormat format,
+            @RequestParam(required = false, defaultValue = "false") boolean gzip,
+            Authentication authentication) {
+        User user = extractUserFromAuthentication(authentication);
+        requireFlorist(user);
+        
+        OrderFeedFilter filter = OrderFeedFilter.builder()
+                .status(status)
+                .paymentMethod(paymentMethod)
+                .from(from)
+                .to(to)
+                .build();
+        
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+                orderService.exportOrderFeed(filter, format, gzipOut);
+                gzipOut.finish();
+            } else {
+                orderService.exportOrderFeed(filter, format, out);
+            }
+        };
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"orders." + format.getFileExtension() + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
+    @PutMapping("/status/bulk")
+    public ResponseEntity<ApiResponse<BulkOrderStatusResponse>> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkOrderStatusRequest request,
+            Authentication authentication) {
+        User user = extractUserFromAuthentication(authentication);
+        requireFlorist(user);
+        
+        BulkOrderStatusResponse result = orderService.bulkUpdateOrderStatus(request);
+        
+        return ResponseEntity.ok(ApiResponse.<BulkOrderStatusResponse>builder()
+                .code(1000)
+                .message("Order statuses updated successfully")
+                .result(result)
+                .build());
+    }
+    
     @PutMapping("/{orderId}/status")
     public ResponseEntity<ApiResponse<OrderResponse>> updateOrderStatus(
             @PathVariable Long orderId,
             @RequestParam Order.OrderStatus status,
+            @RequestParam(required = false) Long version,
             Authentication authentication) {
         User user = extractUserFromAuthentication(authentication);
         
-        // Check if user is a florist (can update any order status)
-        boolean isFlorist = user.getRoles() != null && 
-                user.getRoles().stream()
-                        .anyMatch(role -> "FLORIST".equals(role.getName()));
-        
-        if (!isFlorist) {
-            throw new AppException(ErrorCode.UNAUTHORIZED);
-        }
+        // Only florists can update any order status
+        requireFlorist(user);
         
-        OrderResponse order = orderService.updateOrderStatus(orderId, status);
+        OrderResponse order = orderService.updateOrderStatus(orderId, status, version);
         
         return ResponseEntity.ok(ApiResponse.<OrderResponse>builder()
                 .code(1000)
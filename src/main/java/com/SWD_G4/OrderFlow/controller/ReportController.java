@@ -0,0 +1,67 @@
+package com.SWD_G4.OrderFlow.controller;
+
+import com.SWD_G4.OrderFlow.dto.response.ApiResponse;
+import com.SWD_G4.OrderFlow.dto.response.SalesRollupResponse;
+import com.SWD_G4.OrderFlow.entity.SalesRollup;
+import com.SWD_G4.OrderFlow.entity.User;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import com.SWD_G4.OrderFlow.repository.UserRepository;
+import com.SWD_G4.OrderFlow.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@Slf4j
+public class ReportController {
+    
+    private final SalesRollupService salesRollupService;
+    private final UserRepository userRepository;
+    
+    private User extractUserFromAuthentication(Authentication authentication) {
+        Jwt jwt = (Jwt) authentication.getPrincipal();
+        String username = jwt.getSubject();
+        return userRepository.findByUsername(username)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+    }
+    
+    private void requireFlorist(User user) {
+        boolean isFlorist = user.getRoles() != null && 
+                user.getRoles().stream()
+                        .anyMatch(role -> "FLORIST".equals(role.getName()));
+        
+        if (!isFlorist) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+    }
+    
+    @GetMapping("/sales")
+    public ResponseEntity<ApiResponse<List<SalesRollupResponse>>> getSales(
+            @RequestParam(defaultValue = "DAY") SalesRollup.Grain grain,
+            @RequestParam(defaultValue = "PRODUCT") SalesRollup.Dimension dimension,
+            @RequestParam(required = false) Long dimensionId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            Authentication authentication) {
+        User user = extractUserFromAuthentication(authentication);
+        requireFlorist(user);
+        
+        List<SalesRollupResponse> sales = salesRollupService.getSales(grain, dimension, dimensionId, from, to);
+        
+        return ResponseEntity.ok(ApiResponse.<List<SalesRollupResponse>>builder()
+                .code(1000)
+                .message("Sales report retrieved successfully")
+                .result(sales)
+                .build());
+    }
+}
@@ -0,0 +1,29 @@
+package com.SWD_G4.OrderFlow.dto.request;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusRequest {
+    @NotEmpty(message = "Order IDs are required")
+    @Size(max = 500, message = "At most 500 orders can be updated at once")
+    private List<Long> orderIds;
+    
+    // Only orders currently in this status are moved
+    @NotNull(message = "Expected status is required")
+    private Order.OrderStatus expectedStatus;
+    
+    @NotNull(message = "Status is required")
+    private Order.OrderStatus status;
+}
@@ -0,0 +1,32 @@
+package com.SWD_G4.OrderFlow.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One step of a batch cart update. ADD increases the quantity, SET replaces it (0 removes the
+ * product) and REMOVE drops the product; quantity is ignored for REMOVE.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+    
+    public enum Type {
+        ADD, SET, REMOVE
+    }
+    
+    @NotNull(message = "Operation type is required")
+    private Type type;
+    
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+    
+    @Min(value = 0, message = "Quantity must not be negative")
+    private Integer quantity;
+}
@@ -0,0 +1,29 @@
+package com.SWD_G4.OrderFlow.dto.request;
+
+import com.SWD_G4.OrderFlow.entity.PaymentMethod;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSaleOrderRequest {
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    @Max(value = 10, message = "Quantity must be at most 10")
+    private Integer quantity;
+    
+    // Optional - if not provided, will use user's saved address
+    private String shippingAddress;
+    
+    private String notes;
+    
+    @NotNull(message = "Payment method is required")
+    private PaymentMethod paymentMethod;
+}
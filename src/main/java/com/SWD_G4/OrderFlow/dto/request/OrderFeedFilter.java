@@ -0,0 +1,27 @@
+package com.SWD_G4.OrderFlow.dto.request;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderFeedFilter {
+    // All filters are optional
+    private Order.OrderStatus status;
+    
+    private PaymentMethod paymentMethod;
+    
+    // Inclusive lower bound on createdAt
+    private LocalDateTime from;
+    
+    // Exclusive upper bound on createdAt
+    private LocalDateTime to;
+}
@@ -0,0 +1,20 @@
+package com.SWD_G4.OrderFlow.dto.response;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusResponse {
+    private Order.OrderStatus status;
+    private List<Long> updatedOrderIds;
+    // Orders that do not exist or were not in the expected status
+    private List<Long> skippedOrderIds;
+}
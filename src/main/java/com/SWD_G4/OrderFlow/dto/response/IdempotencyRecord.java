@@ -0,0 +1,26 @@
+package com.SWD_G4.OrderFlow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Entry stored under an Idempotency-Key: either a marker for a request still being
+ * processed or the response of the completed request, replayed to retries.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord implements Serializable {
+    public static final String IN_PROGRESS = "IN_PROGRESS";
+    public static final String COMPLETED = "COMPLETED";
+    
+    private String state;
+    private Object response;
+    // Node execution that wrote an IN_PROGRESS marker; only it may renew or release the marker
+    private String owner;
+}
@@ -0,0 +1,32 @@
+package com.SWD_G4.OrderFlow.dto.response;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.PaymentMethod;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat order row for exports, read with a JPQL constructor expression so no entities
+ * are attached to the persistence context while streaming.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportRow {
+    private Long id;
+    private String orderNumber;
+    private Long userId;
+    private String username;
+    private BigDecimal totalAmount;
+    private Order.OrderStatus status;
+    private PaymentMethod paymentMethod;
+    private String shippingAddress;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
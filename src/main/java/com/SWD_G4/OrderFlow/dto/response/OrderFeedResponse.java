@@ -0,0 +1,21 @@
+package com.SWD_G4.OrderFlow.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the florist order feed. Pass nextCursor back as "cursor" to get the next page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderFeedResponse {
+    private List<OrderResponse> orders;
+    private Long nextCursor;
+    private Boolean hasMore;
+}
@@ -25,6 +25,7 @@ public class OrderResponse {
     private String notes;
     private String paymentMethod;
     private List<OrderItemResponse> orderItems;
+    private Long version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,24 @@
+package com.SWD_G4.OrderFlow.dto.response;
+
+import com.SWD_G4.OrderFlow.entity.SalesRollup;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollupResponse {
+    private SalesRollup.Grain grain;
+    private LocalDateTime bucketStart;
+    private SalesRollup.Dimension dimension;
+    private Long dimensionId;
+    private BigDecimal revenue;
+    private Long units;
+    private Long orderCount;
+}
@@ -10,12 +10,13 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = {
+        @Index(name = "idx_carts_updated_at", columnList = "updated_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -36,8 +37,9 @@ public class Cart {
     private List<CartItem> cartItems;
 
     @Column(name = "total_amount", precision = 10, scale = 2)
+    @Convert(converter = MoneyConverter.class)
     @Builder.Default
-    private BigDecimal totalAmount = BigDecimal.ZERO;
+    private Money totalAmount = Money.ZERO;
 
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -47,13 +49,25 @@ public class Cart {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Also bumped by the bulk SQL updates, so an edit based on a repriced cart fails instead of writing old prices back
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    /**
+     * Apply an item's price change to the running total without re-summing every item.
+     */
+    public void adjustTotalAmount(Money delta) {
+        this.totalAmount = (totalAmount != null ? totalAmount : Money.ZERO).plus(delta);
+    }
+
     public void calculateTotalAmount() {
         if (cartItems != null && !cartItems.isEmpty()) {
             this.totalAmount = cartItems.stream()
                     .map(CartItem::getTotalPrice)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+                    .reduce(Money.ZERO, Money::plus);
         } else {
-            this.totalAmount = BigDecimal.ZERO;
+            this.totalAmount = Money.ZERO;
         }
     }
 }
@@ -10,11 +10,14 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cart_items_cart_product", columnNames = {"cart_id", "product_id"})
+}, indexes = {
+        @Index(name = "idx_cart_items_product", columnList = "product_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -39,10 +42,12 @@ public class CartItem {
     private Integer quantity;
 
     @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
-    private BigDecimal unitPrice;
+    @Convert(converter = MoneyConverter.class)
+    private Money unitPrice;
 
     @Column(name = "total_price", nullable = false, precision = 10, scale = 2)
-    private BigDecimal totalPrice;
+    @Convert(converter = MoneyConverter.class)
+    private Money totalPrice;
 
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
@@ -52,11 +57,21 @@ public class CartItem {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * Set a new quantity and return how much the item's total price changed.
+     */
+    public Money changeQuantity(int newQuantity) {
+        Money previousTotal = totalPrice != null ? totalPrice : Money.ZERO;
+        this.quantity = newQuantity;
+        calculateTotalPrice();
+        return totalPrice.minus(previousTotal);
+    }
+
     @PrePersist
     @PreUpdate
     public void calculateTotalPrice() {
         if (unitPrice != null && quantity != null) {
-            this.totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+            this.totalPrice = unitPrice.times(quantity);
         }
     }
 }
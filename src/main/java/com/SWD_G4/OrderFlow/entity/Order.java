@@ -5,16 +5,21 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_created", columnList = "status, created_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -49,9 +54,22 @@ public class Order {
     @Column(name = "payment_method", nullable = false)
     private PaymentMethod paymentMethod;
 
+    // Items of up to 50 orders in the persistence context are initialized with one query (no N+1 on lists)
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private List<OrderItem> orderItems;
 
+    // Stock was already taken from inventory while the order is still PENDING (flash-sale orders);
+    // cancelling it before confirmation gives the stock back
+    @Column(name = "stock_reserved", nullable = false, columnDefinition = "bit default 0")
+    @Builder.Default
+    private Boolean stockReserved = false;
+
+    // Optimistic lock; existing rows start at 0
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -61,7 +79,23 @@ public class Order {
     private LocalDateTime updatedAt;
 
     public enum OrderStatus {
-        PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED
+        PENDING, CONFIRMED, SHIPPED, DELIVERED, CANCELLED, FAILED;
+
+        /**
+         * Allowed next states. DELIVERED, CANCELLED and FAILED are final.
+         */
+        public Set<OrderStatus> allowedTransitions() {
+            return switch (this) {
+                case PENDING -> EnumSet.of(CONFIRMED, CANCELLED);
+                case CONFIRMED -> EnumSet.of(SHIPPED, CANCELLED);
+                case SHIPPED -> EnumSet.of(DELIVERED);
+                case DELIVERED, CANCELLED, FAILED -> EnumSet.noneOf(OrderStatus.class);
+            };
+        }
+
+        public boolean canTransitionTo(OrderStatus target) {
+            return allowedTransitions().contains(target);
+        }
     }
 
     public Long getId() {
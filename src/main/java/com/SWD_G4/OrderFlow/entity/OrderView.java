@@ -0,0 +1,69 @@
+package com.SWD_G4.OrderFlow.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Denormalized read model of an order: one row per order with its items embedded as JSON.
+ * Maintained from order lifecycle events; serves order reads as single-row lookups.
+ */
+@Entity
+@Table(name = "order_view", indexes = {
+        @Index(name = "idx_order_view_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_order_view_status", columnList = "status")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderView {
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "order_number", nullable = false)
+    private String orderNumber;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "user_name")
+    private String userName;
+
+    @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Order.OrderStatus status;
+
+    @Column(name = "shipping_address")
+    private String shippingAddress;
+
+    @Column(name = "notes")
+    private String notes;
+
+    @Column(name = "payment_method")
+    private String paymentMethod;
+
+    // List<OrderItemResponse> serialized as JSON
+    @Column(name = "items_json", columnDefinition = "TEXT")
+    private String itemsJson;
+
+    // Version of the order itself (usable as ETag)
+    @Column(name = "version")
+    private Long version;
+
+    // Timestamps of the order itself, not of this row
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,76 @@
+package com.SWD_G4.OrderFlow.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Side effect recorded in the same transaction as the order change that caused it.
+ * Rows are picked up by the outbox relay after commit and delivered (Kafka + email, or the order event stream)
+ * outside of any request transaction, with retry.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_available", columnList = "status, available_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private EventType eventType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    // Earliest time the relay may (re)claim this row: retry backoff while PENDING, lease expiry while PROCESSING
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    // Pre-serialized message for events that carry their own data (ORDER_LIFECYCLE, CART_ABANDONED), the recipient
+    // of a per-florist FLORIST_NOTIFICATION; null for other notifications
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @CreatedDate
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum EventType {
+        FLORIST_NOTIFICATION, CUSTOMER_NOTIFICATION, ORDER_STATUS_NOTIFICATION, ORDER_LIFECYCLE, CART_ABANDONED
+    }
+
+    public enum OutboxStatus {
+        PENDING, PROCESSING, SENT, FAILED
+    }
+}
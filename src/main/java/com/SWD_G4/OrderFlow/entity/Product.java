@@ -1,11 +1,14 @@
 package com.SWD_G4.OrderFlow.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -20,6 +23,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @EntityListeners(AuditingEntityListener.class)
+@BatchSize(size = 50) // lazy product proxies (e.g. OrderItem.product) are loaded 50 at a time
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -49,6 +53,16 @@ public class Product {
     @Builder.Default
     private Boolean isActive = true;
 
+    // Sold only through the flash-sale sequencer, which owns its stock while the sale runs
+    @Column(name = "is_flash_sale", nullable = false, columnDefinition = "bit default 0")
+    @Builder.Default
+    private Boolean flashSale = false;
+
+    // Optimistic lock; existing rows start at 0
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -56,4 +70,17 @@ public class Product {
     @LastModifiedDate
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // Price as last read from or written to the database; lets ProductService.save spot price changes
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private BigDecimal persistedPrice;
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberPersistedPrice() {
+        this.persistedPrice = price;
+    }
 }
@@ -0,0 +1,23 @@
+package com.SWD_G4.OrderFlow.event;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Published on {@code cart-events} when the abandoned cart sweeper deletes a cart that still had items,
+ * keyed by user id. The cart is gone by the time consumers see this; the event carries all there is.
+ * <p>
+ * Schema changes are additive within a schemaVersion; anything else bumps SCHEMA_VERSION.
+ */
+public record CartAbandonedMessage(int schemaVersion,
+                                   String eventId,
+                                   Long cartId,
+                                   Long userId,
+                                   int itemCount,
+                                   BigDecimal totalAmount,
+                                   LocalDateTime lastUpdatedAt,
+                                   Instant occurredAt) {
+    
+    public static final int SCHEMA_VERSION = 1;
+}
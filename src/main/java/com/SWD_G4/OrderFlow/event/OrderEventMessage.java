@@ -0,0 +1,25 @@
+package com.SWD_G4.OrderFlow.event;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+
+import java.time.Instant;
+
+/**
+ * Order lifecycle event as published on {@code order-events}, keyed by order id so all events of
+ * an order land in one partition in order. Consumers should still use orderVersion to drop stale
+ * or redelivered events: delivery is at-least-once and a retried event can arrive late.
+ * <p>
+ * Schema changes are additive within a schemaVersion; anything else bumps SCHEMA_VERSION.
+ */
+public record OrderEventMessage(int schemaVersion,
+                                String eventId,
+                                OrderLifecycleEvent.Type eventType,
+                                Long orderId,
+                                Long userId,
+                                Order.OrderStatus previousStatus,
+                                Order.OrderStatus status,
+                                Long orderVersion,
+                                Instant occurredAt) {
+    
+    public static final int SCHEMA_VERSION = 1;
+}
@@ -0,0 +1,24 @@
+package com.SWD_G4.OrderFlow.event;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+
+/**
+ * Published inside the order transaction whenever an order is created or changes state.
+ * Synchronous listeners (read models) see the same transaction as the change.
+ */
+public record OrderLifecycleEvent(Long orderId, Long userId, Type type, Order.OrderStatus previousStatus,
+                                  Order.OrderStatus status, Long version) {
+    
+    public enum Type {
+        CREATED, CONFIRMED, STATUS_CHANGED, CANCELLED
+    }
+    
+    public static OrderLifecycleEvent of(Order order, Type type) {
+        return of(order, type, null);
+    }
+    
+    public static OrderLifecycleEvent of(Order order, Type type, Order.OrderStatus previousStatus) {
+        return new OrderLifecycleEvent(order.getId(), order.getUser().getId(), type, previousStatus,
+                order.getStatus(), order.getVersion());
+    }
+}
@@ -0,0 +1,11 @@
+package com.SWD_G4.OrderFlow.event;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+
+import java.util.List;
+
+/**
+ * Published inside the transaction of a bulk status transition, once for the whole batch.
+ */
+public record OrderStatusBulkChangedEvent(List<Long> orderIds, Order.OrderStatus from, Order.OrderStatus to) {
+}
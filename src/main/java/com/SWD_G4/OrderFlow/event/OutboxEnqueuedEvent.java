@@ -0,0 +1,8 @@
+package com.SWD_G4.OrderFlow.event;
+
+/**
+ * Published when rows are written to the outbox. Listeners run after the surrounding
+ * transaction commits so the relay never sees uncommitted rows.
+ */
+public record OutboxEnqueuedEvent(int count) {
+}
@@ -0,0 +1,9 @@
+package com.SWD_G4.OrderFlow.event;
+
+import java.math.BigDecimal;
+
+/**
+ * A product was saved with a different price. Published inside the saving transaction.
+ */
+public record ProductPriceChangedEvent(Long productId, BigDecimal previousPrice, BigDecimal price) {
+}
@@ -0,0 +1,10 @@
+package com.SWD_G4.OrderFlow.event;
+
+import java.util.Map;
+
+/**
+ * Stock taken for orders that were then cancelled before confirmation went back to inventory.
+ * @param quantities units returned per product id
+ */
+public record ReservedStockReleasedEvent(Map<Long, Integer> quantities) {
+}
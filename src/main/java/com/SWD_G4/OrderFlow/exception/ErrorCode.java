@@ -16,20 +16,38 @@ public enum ErrorCode {
     UNAUTHENTICATED(1006, "Unauthenticated", HttpStatus.UNAUTHORIZED),
     UNAUTHORIZED(1007, "You do not have permission", HttpStatus.FORBIDDEN),
     INVALID_DOB(1008, "Your age must be at least {min}", HttpStatus.BAD_REQUEST),
+    CONCURRENT_MODIFICATION(1009, "Resource was modified concurrently, please reload and retry", HttpStatus.CONFLICT),
+    TOO_MANY_REQUESTS(1010, "Too many requests, please retry later", HttpStatus.TOO_MANY_REQUESTS),
     
     // Product related errors
     PRODUCT_NOT_FOUND(2001, "Product not found", HttpStatus.NOT_FOUND),
     PRODUCT_NOT_AVAILABLE(2002, "Product is not available", HttpStatus.BAD_REQUEST),
     INSUFFICIENT_STOCK(2003, "Insufficient stock", HttpStatus.BAD_REQUEST),
+    FLASH_SALE_SOLD_OUT(2004, "Flash sale product is sold out", HttpStatus.CONFLICT),
+    PRODUCT_NOT_IN_FLASH_SALE(2005, "Product is not in an active flash sale", HttpStatus.BAD_REQUEST),
+    FLASH_SALE_CHECKOUT_REQUIRED(2006, "Flash sale products can only be ordered through the flash sale endpoint", HttpStatus.BAD_REQUEST),
     
     // Cart related errors
     CART_NOT_FOUND(3001, "Cart not found", HttpStatus.NOT_FOUND),
     CART_ITEM_NOT_FOUND(3002, "Cart item not found", HttpStatus.NOT_FOUND),
+    INVALID_CART_OPERATION(3003, "Cart operation is invalid", HttpStatus.BAD_REQUEST),
+    CART_BUSY(3004, "Cart is being updated by another request, please retry", HttpStatus.CONFLICT),
+    GUEST_CART_UNAVAILABLE(3005, "Guest carts are full, please log in or retry later", HttpStatus.SERVICE_UNAVAILABLE),
     
     // Order related errors
     ORDER_NOT_FOUND(4001, "Order not found", HttpStatus.NOT_FOUND),
     ORDER_ALREADY_CONFIRMED(4002, "Order is already confirmed", HttpStatus.BAD_REQUEST),
     EMPTY_CART(4003, "Cart is empty", HttpStatus.BAD_REQUEST),
+    INVALID_IDEMPOTENCY_KEY(4004, "Idempotency-Key header is invalid", HttpStatus.BAD_REQUEST),
+    IDEMPOTENT_REQUEST_IN_PROGRESS(4005, "A request with this Idempotency-Key is still being processed", HttpStatus.CONFLICT),
+    INVALID_STATUS_TRANSITION(4006, "Order status transition is not allowed", HttpStatus.BAD_REQUEST),
+    CHECKOUT_OVERLOADED(4007, "Checkout is busy, please retry shortly", HttpStatus.TOO_MANY_REQUESTS),
+    
+    // Notification related errors
+    NOTIFICATION_DELIVERY_FAILED(5001, "Notification delivery failed", HttpStatus.SERVICE_UNAVAILABLE),
+    
+    // Report related errors
+    INVALID_REPORT_RANGE(6001, "Report range is invalid or too large", HttpStatus.BAD_REQUEST),
     ;
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
@@ -6,6 +6,8 @@ import java.util.Objects;
 import com.SWD_G4.OrderFlow.dto.request.ApiResponse;
 import jakarta.validation.ConstraintViolation;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -44,6 +46,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(errorCode.getStatusCode()).body(apiResponse);
     }
 
+    /**
+     * Version check failed because another request updated the same row first.
+     * Safe to retry after re-reading.
+     */
+    @ExceptionHandler(value = OptimisticLockingFailureException.class)
+    ResponseEntity<ApiResponse> handlingOptimisticLockingFailure(OptimisticLockingFailureException exception) {
+        log.warn("Optimistic lock conflict: {}", exception.getMessage());
+        ErrorCode errorCode = ErrorCode.CONCURRENT_MODIFICATION;
+
+        return ResponseEntity.status(errorCode.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.builder()
+                        .code(errorCode.getCode())
+                        .message(errorCode.getMessage())
+                        .build());
+    }
+
     @ExceptionHandler(value = AccessDeniedException.class)
     ResponseEntity<ApiResponse> handlingAccessDeniedException(AccessDeniedException exception) {
         ErrorCode errorCode = ErrorCode.UNAUTHORIZED;
@@ -4,9 +4,19 @@ import com.SWD_G4.OrderFlow.dto.response.CartItemResponse;
 import com.SWD_G4.OrderFlow.dto.response.CartResponse;
 import com.SWD_G4.OrderFlow.entity.Cart;
 import com.SWD_G4.OrderFlow.entity.CartItem;
+import com.SWD_G4.OrderFlow.entity.Money;
+import com.SWD_G4.OrderFlow.entity.Product;
+import com.SWD_G4.OrderFlow.service.HotCartStore;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Component
@@ -28,12 +38,56 @@ public class CartMapper {
                 .id(cart.getId())
                 .userId(cart.getUser() != null ? cart.getUser().getId() : null)
                 .cartItems(cartItemResponses)
-                .totalAmount(cart.getTotalAmount())
+                .totalAmount(toBigDecimal(cart.getTotalAmount()))
                 .createdAt(cart.getCreatedAt())
                 .updatedAt(cart.getUpdatedAt())
                 .build();
     }
     
+    /**
+     * Response for a user who has no cart row yet.
+     */
+    public CartResponse emptyCartResponse(Long userId) {
+        return CartResponse.builder()
+                .userId(userId)
+                .cartItems(new ArrayList<>())
+                .totalAmount(BigDecimal.ZERO)
+                .build();
+    }
+    
+    /**
+     * Response for a cart held in Redis. Such carts have no row ids yet, so item ids are product ids.
+     */
+    public CartResponse toCartResponse(Long userId, HotCartStore.Snapshot snapshot, Map<Long, Product> products) {
+        Money totalAmount = Money.ZERO;
+        List<CartItemResponse> cartItemResponses = new ArrayList<>(snapshot.lines().size());
+        for (HotCartStore.Line line : snapshot.lines()) {
+            Product product = products.get(line.productId());
+            Money totalPrice = line.unitPrice().times(line.quantity());
+            totalAmount = totalAmount.plus(totalPrice);
+            cartItemResponses.add(CartItemResponse.builder()
+                    .id(line.productId())
+                    .productId(line.productId())
+                    .productName(product != null ? product.getName() : null)
+                    .productImageUrl(product != null ? product.getImageUrl() : null)
+                    .unitPrice(line.unitPrice().toBigDecimal())
+                    .quantity(line.quantity())
+                    .totalPrice(totalPrice.toBigDecimal())
+                    .build());
+        }
+        cartItemResponses.sort(Comparator.comparing(CartItemResponse::getProductId));
+        LocalDateTime updatedAt = snapshot.touchedAt() != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(snapshot.touchedAt())), ZoneId.systemDefault())
+                : null;
+        
+        return CartResponse.builder()
+                .userId(userId)
+                .cartItems(cartItemResponses)
+                .totalAmount(totalAmount.toBigDecimal())
+                .updatedAt(updatedAt)
+                .build();
+    }
+    
     public CartItemResponse toCartItemResponse(CartItem cartItem) {
         if (cartItem == null) {
             return null;
@@ -44,11 +98,15 @@ public class CartMapper {
                 .productId(cartItem.getProduct() != null ? cartItem.getProduct().getId() : null)
                 .productName(cartItem.getProduct() != null ? cartItem.getProduct().getName() : null)
                 .productImageUrl(cartItem.getProduct() != null ? cartItem.getProduct().getImageUrl() : null)
-                .unitPrice(cartItem.getUnitPrice())
+                .unitPrice(toBigDecimal(cartItem.getUnitPrice()))
                 .quantity(cartItem.getQuantity())
-                .totalPrice(cartItem.getTotalPrice())
+                .totalPrice(toBigDecimal(cartItem.getTotalPrice()))
                 .createdAt(cartItem.getCreatedAt())
                 .updatedAt(cartItem.getUpdatedAt())
                 .build();
     }
+    
+    private static BigDecimal toBigDecimal(Money money) {
+        return money != null ? money.toBigDecimal() : null;
+    }
 }
@@ -43,6 +43,7 @@ public class OrderMapper {
                 .notes(order.getNotes())
                 .paymentMethod(order.getPaymentMethod() != null ? order.getPaymentMethod().name() : null)
                 .orderItems(orderItemResponses)
+                .version(order.getVersion())
                 .createdAt(order.getCreatedAt())
                 .updatedAt(order.getUpdatedAt())
                 .build();
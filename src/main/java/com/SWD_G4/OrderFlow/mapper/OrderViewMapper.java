@@ -0,0 +1,114 @@
+package com.SWD_G4.OrderFlow.mapper;
+
+import com.SWD_G4.OrderFlow.dto.response.OrderItemResponse;
+import com.SWD_G4.OrderFlow.dto.response.OrderResponse;
+import com.SWD_G4.OrderFlow.entity.ArchivedOrder;
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.OrderView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class OrderViewMapper {
+    
+    private static final TypeReference<List<OrderItemResponse>> ITEM_LIST = new TypeReference<>() {};
+    
+    private final OrderMapper orderMapper;
+    private final ObjectMapper objectMapper;
+    
+    public OrderView toOrderView(Order order) {
+        if (order == null) {
+            return null;
+        }
+        
+        OrderResponse response = orderMapper.toOrderResponse(order);
+        
+        return OrderView.builder()
+                .orderId(response.getId())
+                .orderNumber(response.getOrderNumber())
+                .userId(response.getUserId())
+                .userName(response.getUserName())
+                .totalAmount(response.getTotalAmount())
+                .status(response.getStatus())
+                .shippingAddress(response.getShippingAddress())
+                .notes(response.getNotes())
+                .paymentMethod(response.getPaymentMethod())
+                .itemsJson(writeItems(response.getOrderItems()))
+                .version(response.getVersion())
+                .createdAt(response.getCreatedAt())
+                .updatedAt(response.getUpdatedAt())
+                .build();
+    }
+    
+    public OrderResponse toOrderResponse(OrderView view) {
+        if (view == null) {
+            return null;
+        }
+        
+        return OrderResponse.builder()
+                .id(view.getOrderId())
+                .orderNumber(view.getOrderNumber())
+                .userId(view.getUserId())
+                .userName(view.getUserName())
+                .totalAmount(view.getTotalAmount())
+                .status(view.getStatus())
+                .shippingAddress(view.getShippingAddress())
+                .notes(view.getNotes())
+                .paymentMethod(view.getPaymentMethod())
+                .orderItems(readItems(view.getItemsJson()))
+                .version(view.getVersion())
+                .createdAt(view.getCreatedAt())
+                .updatedAt(view.getUpdatedAt())
+                .build();
+    }
+    
+    public OrderResponse toOrderResponse(ArchivedOrder archived) {
+        if (archived == null) {
+            return null;
+        }
+        
+        return OrderResponse.builder()
+                .id(archived.getOrderId())
+                .orderNumber(archived.getOrderNumber())
+                .userId(archived.getUserId())
+                .userName(archived.getUserName())
+                .totalAmount(archived.getTotalAmount())
+                .status(archived.getStatus())
+                .shippingAddress(archived.getShippingAddress())
+                .notes(archived.getNotes())
+                .paymentMethod(archived.getPaymentMethod())
+                .orderItems(readItems(archived.getItemsJson()))
+                .version(archived.getVersion())
+                .createdAt(archived.getCreatedAt())
+                .updatedAt(archived.getUpdatedAt())
+                .build();
+    }
+    
+    private String writeItems(List<OrderItemResponse> items) {
+        if (items == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order items", e);
+        }
+    }
+    
+    private List<OrderItemResponse> readItems(String itemsJson) {
+        if (itemsJson == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(itemsJson, ITEM_LIST);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize order items", e);
+        }
+    }
+}
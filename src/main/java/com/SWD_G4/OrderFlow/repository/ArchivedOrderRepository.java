@@ -0,0 +1,29 @@
+package com.SWD_G4.OrderFlow.repository;
+
+import com.SWD_G4.OrderFlow.entity.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+    
+    List<ArchivedOrder> findByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    /**
+     * Copy the order_view rows of the given orders into the archive in one statement.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO orders_archive (order_id, order_number, user_id, user_name, total_amount, status, " +
+            "shipping_address, notes, payment_method, items_json, version, created_at, updated_at, archived_at) " +
+            "SELECT v.order_id, v.order_number, v.user_id, v.user_name, v.total_amount, v.status, " +
+            "v.shipping_address, v.notes, v.payment_method, v.items_json, v.version, v.created_at, v.updated_at, :now " +
+            "FROM order_view v WHERE v.order_id IN (:orderIds)", nativeQuery = true)
+    int copyFromView(@Param("orderIds") Collection<Long> orderIds, @Param("now") LocalDateTime now);
+}
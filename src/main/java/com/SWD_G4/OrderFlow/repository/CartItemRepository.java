@@ -4,15 +4,63 @@ import com.SWD_G4.OrderFlow.entity.Cart;
 import com.SWD_G4.OrderFlow.entity.CartItem;
 import com.SWD_G4.OrderFlow.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByCartAndProduct(Cart cart, Product product);
     
-    void deleteByCartAndProduct(Cart cart, Product product);
+    /**
+     * Set-based delete. Managed copies of the deleted items are not touched; see CartService.emptyCart.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cart = :cart AND ci.product = :product")
+    int deleteByCartAndProduct(@Param("cart") Cart cart, @Param("product") Product product);
     
-    void deleteByCart(Cart cart);
+    /**
+     * Set-based delete of every line of the cart in one statement. Managed copies of the deleted
+     * items are not touched; see CartService.emptyCart.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cart = :cart")
+    int deleteByCart(@Param("cart") Cart cart);
+    
+    /**
+     * Next chunk of lines of the product whose price differs, walking idx_cart_items_product from afterId.
+     * Columns: cart item id, cart id, user id.
+     */
+    @Query(value = "SELECT ci.id, ci.cart_id, c.user_id FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+            "WHERE ci.product_id = :productId AND ci.id > :afterId AND ci.unit_price <> :unitPrice " +
+            "ORDER BY ci.id LIMIT :limit", nativeQuery = true)
+    List<Object[]> findToReprice(@Param("productId") Long productId, @Param("unitPrice") BigDecimal unitPrice,
+                                 @Param("afterId") Long afterId, @Param("limit") int limit);
+    
+    @Modifying
+    @Query(value = "UPDATE cart_items SET unit_price = :unitPrice, total_price = :unitPrice * quantity, " +
+            "updated_at = NOW(6) WHERE id IN (:ids)", nativeQuery = true)
+    int reprice(@Param("ids") Collection<Long> ids, @Param("unitPrice") BigDecimal unitPrice);
+    
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN :cartIds")
+    int deleteAllByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
+    
+    /**
+     * Insert the line, or add to its quantity when the product is already in the cart
+     * (unique cart_id, product_id). An existing line keeps its price snapshot.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO cart_items (cart_id, product_id, quantity, unit_price, total_price, created_at, updated_at) " +
+            "VALUES (:cartId, :productId, :quantity, :unitPrice, :unitPrice * :quantity, NOW(6), NOW(6)) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), " +
+            "total_price = unit_price * quantity, updated_at = VALUES(updated_at)", nativeQuery = true)
+    int upsertQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId,
+                       @Param("quantity") int quantity, @Param("unitPrice") BigDecimal unitPrice);
 }
@@ -3,10 +3,14 @@ package com.SWD_G4.OrderFlow.repository;
 import com.SWD_G4.OrderFlow.entity.Cart;
 import com.SWD_G4.OrderFlow.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,4 +21,41 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserWithItems(@Param("user") User user);
     
     boolean existsByUser(User user);
+    
+    @Query("SELECT c.id FROM Cart c WHERE c.user = :user")
+    Optional<Long> findIdByUser(@Param("user") User user);
+    
+    @Modifying
+    @Query(value = "UPDATE carts SET total_amount = 0, updated_at = NOW(6), version = version + 1 WHERE id = :cartId", nativeQuery = true)
+    int resetTotalAmount(@Param("cartId") Long cartId);
+    
+    /**
+     * Next chunk of carts not updated since the cutoff, walking idx_carts_updated_at from the
+     * (updated_at, id) cursor. Rows are locked for the caller's transaction; rows locked by a
+     * concurrent cart write are skipped and picked up by a later run.
+     * Columns: id, user_id, updated_at, total_amount, item count.
+     */
+    @Query(value = "SELECT c.id, c.user_id, c.updated_at, c.total_amount, " +
+            "(SELECT COUNT(*) FROM cart_items ci WHERE ci.cart_id = c.id) " +
+            "FROM carts c WHERE c.updated_at < :before " +
+            "AND (c.updated_at > :afterUpdatedAt OR (c.updated_at = :afterUpdatedAt AND c.id > :afterId)) " +
+            "ORDER BY c.updated_at, c.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Object[]> lockIdleAfter(@Param("before") LocalDateTime before,
+                                 @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+                                 @Param("afterId") Long afterId,
+                                 @Param("limit") int limit);
+    
+    /**
+     * Recompute the stored totals from the items, in SQL. updated_at is left alone: repricing is not
+     * activity of the cart's owner. The version is bumped so a concurrent edit of these carts fails.
+     */
+    @Modifying
+    @Query(value = "UPDATE carts c SET c.total_amount = " +
+            "(SELECT COALESCE(SUM(ci.total_price), 0) FROM cart_items ci WHERE ci.cart_id = c.id), " +
+            "c.version = c.version + 1 WHERE c.id IN (:ids)", nativeQuery = true)
+    int recomputeTotals(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 }
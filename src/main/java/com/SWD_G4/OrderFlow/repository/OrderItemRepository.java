@@ -3,13 +3,38 @@ package com.SWD_G4.OrderFlow.repository;
 import com.SWD_G4.OrderFlow.entity.Order;
 import com.SWD_G4.OrderFlow.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder(Order order);
     
-    void deleteByOrder(Order order);
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM OrderItem oi WHERE oi.order = :order")
+    int deleteByOrder(@Param("order") Order order);
+    
+    @Modifying
+    @Query("DELETE FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    int deleteAllByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * Units per product held by the given orders that still have stock reserved: rows of [productId, quantity].
+     */
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi " +
+            "WHERE oi.order.id IN :orderIds AND oi.order.stockReserved = true GROUP BY oi.product.id")
+    List<Object[]> sumReservedQuantities(@Param("orderIds") Collection<Long> orderIds);
+    
+    /**
+     * Units per product of the given orders whose stock was not taken at checkout: rows of [productId, quantity].
+     */
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi " +
+            "WHERE oi.order.id IN :orderIds AND (oi.order.stockReserved IS NULL OR oi.order.stockReserved = false) " +
+            "GROUP BY oi.product.id")
+    List<Object[]> sumUnreservedQuantities(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -1,24 +1,38 @@
 package com.SWD_G4.OrderFlow.repository;
 
+import com.SWD_G4.OrderFlow.dto.response.OrderExportRow;
 import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.PaymentMethod;
 import com.SWD_G4.OrderFlow.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    // Integer.MIN_VALUE tells MySQL Connector/J to stream rows one by one instead of buffering the result set
+    String STREAMING_FETCH_SIZE = "-2147483648";
+    
     List<Order> findByUser(User user);
     
     List<Order> findByUserOrderByCreatedAtDesc(User user);
     
+    @EntityGraph(attributePaths = "user")
     List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
     
     Page<Order> findByUser(User user, Pageable pageable);
@@ -31,6 +45,78 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o JOIN FETCH o.user WHERE o.id = :id")
     Optional<Order> findByIdWithUser(@Param("id") Long id);
     
-    @Query("SELECT o FROM Order o JOIN FETCH o.user ORDER BY o.createdAt DESC")
-    List<Order> findAllWithUser();
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.orderItems oi LEFT JOIN FETCH oi.product WHERE o.id = :id")
+    Optional<Order> findByIdWithDetails(@Param("id") Long id);
+    
+    @Query("SELECT o FROM Order o JOIN FETCH o.user WHERE o.id IN :ids")
+    List<Order> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Lock the given orders that are still in the expected status (others are left untouched).
+     */
+    @Query(value = "SELECT id FROM orders WHERE id IN (:ids) AND status = :status FOR UPDATE", nativeQuery = true)
+    List<Long> lockIdsWithStatus(@Param("ids") Collection<Long> ids, @Param("status") String status);
+    
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :target, o.updatedAt = :now, o.version = o.version + 1 " +
+            "WHERE o.id IN :ids AND o.status = :expected")
+    int bulkUpdateStatus(@Param("ids") Collection<Long> ids,
+                         @Param("expected") Order.OrderStatus expected,
+                         @Param("target") Order.OrderStatus target,
+                         @Param("now") LocalDateTime now);
+    
+    /**
+     * Rows of [id, userId, version] for the given orders.
+     */
+    @Query("SELECT o.id, o.user.id, o.version FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Object[]> findUserIdsAndVersions(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Order o SET o.stockReserved = false WHERE o.id IN :ids")
+    int clearStockReserved(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Keyset page of PENDING orders as rows of [id, createdAt], ordered by id.
+     */
+    @Query("SELECT o.id, o.createdAt FROM Order o " +
+            "WHERE o.status = com.SWD_G4.OrderFlow.entity.Order.OrderStatus.PENDING AND o.id > :afterId ORDER BY o.id")
+    List<Object[]> findPendingAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Ids of orders that have no order_view row yet (created before the read model existed).
+     */
+    @Query("SELECT o.id FROM Order o WHERE NOT EXISTS (SELECT 1 FROM OrderView v WHERE v.orderId = o.id) ORDER BY o.id")
+    List<Long> findIdsWithoutView(Pageable pageable);
+    
+    /**
+     * Oldest orders in one of the given (closed) statuses created before the cutoff.
+     * Only orders with a view row qualify, since the archive is copied from order_view.
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.createdAt < :before " +
+            "AND EXISTS (SELECT 1 FROM OrderView v WHERE v.orderId = o.id) ORDER BY o.id")
+    List<Long> findArchivableIds(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                 @Param("before") LocalDateTime before,
+                                 Pageable pageable);
+    
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Forward-only stream of export rows. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAMING_FETCH_SIZE))
+    @Query("SELECT new com.SWD_G4.OrderFlow.dto.response.OrderExportRow(" +
+            "o.id, o.orderNumber, u.id, u.username, o.totalAmount, o.status, o.paymentMethod, " +
+            "o.shippingAddress, o.createdAt, o.updatedAt) " +
+            "FROM Order o JOIN o.user u " +
+            "WHERE (:status IS NULL OR o.status = :status) " +
+            "AND (:paymentMethod IS NULL OR o.paymentMethod = :paymentMethod) " +
+            "AND (:from IS NULL OR o.createdAt >= :from) " +
+            "AND (:to IS NULL OR o.createdAt < :to) " +
+            "ORDER BY o.id DESC")
+    Stream<OrderExportRow> streamFeed(@Param("status") Order.OrderStatus status,
+                                      @Param("paymentMethod") PaymentMethod paymentMethod,
+                                      @Param("from") LocalDateTime from,
+                                      @Param("to") LocalDateTime to);
 }
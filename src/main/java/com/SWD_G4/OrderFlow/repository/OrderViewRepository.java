@@ -0,0 +1,56 @@
+package com.SWD_G4.OrderFlow.repository;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.OrderView;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderViewRepository extends JpaRepository<OrderView, Long> {
+    
+    List<OrderView> findByUserIdOrderByCreatedAtDesc(Long userId);
+    
+    /**
+     * Keyset page of all orders, newest first. Order ids grow with createdAt, so "orderId < beforeId"
+     * continues the previous page without OFFSET scans. Pass a Pageable only to limit the size.
+     */
+    @Query("SELECT v FROM OrderView v " +
+            "WHERE (:status IS NULL OR v.status = :status) " +
+            "AND (:paymentMethod IS NULL OR v.paymentMethod = :paymentMethod) " +
+            "AND (:from IS NULL OR v.createdAt >= :from) " +
+            "AND (:to IS NULL OR v.createdAt < :to) " +
+            "AND (:beforeId IS NULL OR v.orderId < :beforeId) " +
+            "ORDER BY v.orderId DESC")
+    List<OrderView> findFeedPage(@Param("status") Order.OrderStatus status,
+                                 @Param("paymentMethod") String paymentMethod,
+                                 @Param("from") LocalDateTime from,
+                                 @Param("to") LocalDateTime to,
+                                 @Param("beforeId") Long beforeId,
+                                 Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE OrderView v SET v.status = :status, v.version = :version, v.updatedAt = :updatedAt WHERE v.orderId = :orderId")
+    int updateStatus(@Param("orderId") Long orderId,
+                     @Param("status") Order.OrderStatus status,
+                     @Param("version") Long version,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Modifying
+    @Query("UPDATE OrderView v SET v.status = :status, v.version = v.version + 1, v.updatedAt = :updatedAt " +
+            "WHERE v.orderId IN :orderIds")
+    int updateStatusAll(@Param("orderIds") Collection<Long> orderIds,
+                        @Param("status") Order.OrderStatus status,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+    
+    @Modifying
+    @Query("DELETE FROM OrderView v WHERE v.orderId IN :orderIds")
+    int deleteAllByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+}
@@ -0,0 +1,50 @@
+package com.SWD_G4.OrderFlow.repository;
+
+import com.SWD_G4.OrderFlow.entity.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    /**
+     * Lock the next batch of deliverable events. Rows already locked by another relay
+     * instance are skipped (lock timeout -2 = SKIP LOCKED), so nodes never block each other.
+     * PROCESSING rows whose lease has expired are picked up again.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status IN ('PENDING', 'PROCESSING') AND e.availableAt <= :now ORDER BY e.id")
+    List<OutboxEvent> findDeliverable(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Insert one PENDING event per order in a single statement (IDENTITY ids rule out JDBC batching of saveAll).
+     */
+    @Modifying
+    @Query(value = "INSERT INTO outbox_events (aggregate_id, event_type, status, attempts, available_at, created_at, updated_at) " +
+            "SELECT o.id, :eventType, 'PENDING', 0, :now, :now, :now FROM orders o WHERE o.id IN (:orderIds)",
+            nativeQuery = true)
+    int insertForOrders(@Param("orderIds") Collection<Long> orderIds,
+                        @Param("eventType") String eventType,
+                        @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = 'SENT', e.lastError = null, e.updatedAt = :now WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'SENT' AND e.updatedAt < :before")
+    int deleteSentBefore(@Param("before") LocalDateTime before);
+}
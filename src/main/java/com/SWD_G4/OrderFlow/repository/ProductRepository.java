@@ -2,14 +2,19 @@ package com.SWD_G4.OrderFlow.repository;
 
 import com.SWD_G4.OrderFlow.entity.Product;
 import com.SWD_G4.OrderFlow.entity.Category;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -29,4 +34,27 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findAvailableProducts();
     
     List<Product> findByCategoryIdAndIsActiveTrue(Long categoryId);
+    
+    List<Product> findByFlashSaleTrueAndIsActiveTrue();
+    
+    /**
+     * Take quantity units of stock in one statement; returns 0 (and changes nothing) if stock is short.
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.version = p.version + 1 " +
+            "WHERE p.id = :productId AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.version = p.version + 1 " +
+            "WHERE p.id = :productId")
+    int incrementStock(@Param("productId") Long productId, @Param("quantity") int quantity);
+    
+    /**
+     * Price currently stored for the product. Pending changes in the persistence context are not
+     * flushed first, so this is the committed price even while a modified copy is managed.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    @Query("SELECT p.price FROM Product p WHERE p.id = :productId")
+    Optional<BigDecimal> findPriceById(@Param("productId") Long productId);
 }
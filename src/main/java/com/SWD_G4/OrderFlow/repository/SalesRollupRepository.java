@@ -0,0 +1,25 @@
+package com.SWD_G4.OrderFlow.repository;
+
+import com.SWD_G4.OrderFlow.entity.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long>, SalesRollupRepositoryCustom {
+    
+    @Query("SELECT r FROM SalesRollup r " +
+            "WHERE r.grain = :grain AND r.dimension = :dimension " +
+            "AND (:dimensionId IS NULL OR r.dimensionId = :dimensionId) " +
+            "AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "ORDER BY r.bucketStart, r.dimensionId")
+    List<SalesRollup> findRange(@Param("grain") SalesRollup.Grain grain,
+                                @Param("dimension") SalesRollup.Dimension dimension,
+                                @Param("dimensionId") Long dimensionId,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,14 @@
+package com.SWD_G4.OrderFlow.repository;
+
+import com.SWD_G4.OrderFlow.entity.SalesRollup;
+
+import java.util.Collection;
+
+public interface SalesRollupRepositoryCustom {
+    
+    /**
+     * Add the given deltas to their rollup rows, creating missing rows, in one JDBC batch.
+     * Negative deltas subtract (cancellations).
+     */
+    void upsertDeltas(Collection<SalesRollup> deltas);
+}
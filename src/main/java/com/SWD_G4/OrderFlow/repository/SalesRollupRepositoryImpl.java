@@ -0,0 +1,44 @@
+package com.SWD_G4.OrderFlow.repository;
+
+import com.SWD_G4.OrderFlow.entity.SalesRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class SalesRollupRepositoryImpl implements SalesRollupRepositoryCustom {
+    
+    private static final String UPSERT_SQL =
+            "INSERT INTO sales_rollups (grain, bucket_start, dimension, dimension_id, revenue, units, order_count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), units = units + VALUES(units), " +
+            "order_count = order_count + VALUES(order_count), updated_at = VALUES(updated_at)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public void upsertDeltas(Collection<SalesRollup> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        
+        List<Object[]> batch = new ArrayList<>(deltas.size());
+        for (SalesRollup delta : deltas) {
+            batch.add(new Object[]{
+                    delta.getGrain().name(),
+                    Timestamp.valueOf(delta.getBucketStart()),
+                    delta.getDimension().name(),
+                    delta.getDimensionId(),
+                    delta.getRevenue(),
+                    delta.getUnits(),
+                    delta.getOrderCount(),
+                    Timestamp.valueOf(delta.getUpdatedAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+    }
+}
@@ -0,0 +1,106 @@
+package com.SWD_G4.OrderFlow.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically deletes carts idle for app.cart.sweeper.idle-days, so carts and cart_items only hold
+ * carts that may still be checked out. Chunks are small, separate transactions with a pause in between,
+ * so the sweep never holds many row locks or competes with cart traffic for long.
+ */
+@Component
+@Slf4j
+public class AbandonedCartSweeper {
+    
+    // Start of the (updated_at, id) cursor: before any cart
+    private static final LocalDateTime CURSOR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private final CartSweepService cartSweepService;
+    private final Counter sweptCarts;
+    private final Counter sweptItems;
+    private final Counter abandonedEvents;
+    private final Timer sweepDuration;
+    
+    @Value("${app.cart.sweeper.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.cart.sweeper.idle-days:30}")
+    private long idleDays;
+    
+    @Value("${app.cart.sweeper.chunk-size:500}")
+    private int chunkSize;
+    
+    @Value("${app.cart.sweeper.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+    
+    @Value("${app.cart.sweeper.pause-ms:100}")
+    private long pauseMs;
+    
+    public AbandonedCartSweeper(CartSweepService cartSweepService, MeterRegistry meterRegistry) {
+        this.cartSweepService = cartSweepService;
+        this.sweptCarts = Counter.builder("orderflow.carts.swept")
+                .description("Idle carts deleted by the abandoned cart sweeper")
+                .register(meterRegistry);
+        this.sweptItems = Counter.builder("orderflow.carts.swept.items")
+                .description("Cart items deleted along with idle carts")
+                .register(meterRegistry);
+        this.abandonedEvents = Counter.builder("orderflow.carts.abandoned.events")
+                .description("Cart-abandoned events queued for non-empty idle carts")
+                .register(meterRegistry);
+        this.sweepDuration = Timer.builder("orderflow.carts.sweep.duration")
+                .description("Duration of abandoned cart sweeper runs")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.cart.sweeper.interval-ms:3600000}",
+            initialDelayString = "${app.cart.sweeper.initial-delay-ms:300000}")
+    public void sweepAbandonedCarts() {
+        if (!enabled) {
+            return;
+        }
+        sweepDuration.record(this::sweep);
+    }
+    
+    private void sweep() {
+        LocalDateTime before = LocalDateTime.now().minusDays(idleDays);
+        LocalDateTime afterUpdatedAt = CURSOR_START;
+        Long afterId = 0L;
+        long carts = 0;
+        int chunks = 0;
+        CartSweepService.Chunk chunk;
+        do {
+            chunk = cartSweepService.sweepChunk(before, afterUpdatedAt, afterId, chunkSize);
+            afterUpdatedAt = chunk.lastUpdatedAt();
+            afterId = chunk.lastId();
+            carts += chunk.deletedCarts();
+            sweptCarts.increment(chunk.deletedCarts());
+            sweptItems.increment(chunk.deletedItems());
+            abandonedEvents.increment(chunk.abandonedEvents());
+            chunks++;
+        } while (chunk.scanned() == chunkSize && chunks < maxChunksPerRun && pause());
+        
+        if (carts > 0) {
+            log.info("Swept {} cart(s) idle since before {} in {} chunk(s)", carts, before, chunks);
+        }
+    }
+    
+    /**
+     * @return false if interrupted, which ends the run
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
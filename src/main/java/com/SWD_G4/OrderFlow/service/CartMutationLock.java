@@ -0,0 +1,133 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes cart mutations per user so concurrent requests (double-clicks, parallel tabs) cannot
+ * both insert the same product or overwrite each other's quantities. A fixed set of striped locks
+ * covers this node; with app.cart.lock.redis-lease.enabled a short Redis lease (SET NX PX) extends it
+ * across nodes. Callers must take the lock outside the transaction so it is held until commit.
+ */
+@Service
+@Slf4j
+public class CartMutationLock {
+
+    private static final String KEY_PREFIX = "cart::lock::";
+    private static final long LEASE_POLL_MS = 15;
+
+    // Delete the lease only if this caller still owns it
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ReentrantLock[] stripes;
+
+    @Value("${app.cart.lock.redis-lease.enabled:false}")
+    private boolean leaseEnabled;
+
+    @Value("${app.cart.lock.redis-lease.lease-ms:5000}")
+    private long leaseMs;
+
+    @Value("${app.cart.lock.wait-ms:2000}")
+    private long waitMs;
+
+    public CartMutationLock(@Autowired(required = false) StringRedisTemplate redisTemplate,
+                            @Value("${app.cart.lock.stripes:256}") int stripeCount) {
+        this.redisTemplate = redisTemplate;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Run action while holding the user's cart lock.
+     * @throws AppException CART_BUSY when the lock is not acquired within app.cart.lock.wait-ms
+     */
+    public <T> T withUserLock(Long userId, Supplier<T> action) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        ReentrantLock stripe = stripes[Math.floorMod(Long.hashCode(userId) * 0x9E3779B9, stripes.length)];
+
+        try {
+            if (!stripe.tryLock(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new AppException(ErrorCode.CART_BUSY);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.CART_BUSY);
+        }
+
+        try {
+            if (!useLease()) {
+                return action.get();
+            }
+
+            String key = KEY_PREFIX + userId;
+            String token = UUID.randomUUID().toString();
+            acquireLease(key, token, deadline);
+            try {
+                return action.get();
+            } finally {
+                releaseLease(key, token);
+            }
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    public void runWithUserLock(Long userId, Runnable action) {
+        withUserLock(userId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private boolean useLease() {
+        return leaseEnabled && redisTemplate != null;
+    }
+
+    private void acquireLease(String key, String token, long deadline) {
+        while (true) {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key, token, Duration.ofMillis(leaseMs));
+            if (Boolean.TRUE.equals(acquired)) {
+                return;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new AppException(ErrorCode.CART_BUSY);
+            }
+            try {
+                Thread.sleep(LEASE_POLL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AppException(ErrorCode.CART_BUSY);
+            }
+        }
+    }
+
+    private void releaseLease(String key, String token) {
+        try {
+            Long released = redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+            if (released == null || released == 0) {
+                log.warn("Cart lease {} expired before release; consider raising app.cart.lock.redis-lease.lease-ms", key);
+            }
+        } catch (RuntimeException e) {
+            // The lease expires on its own
+            log.warn("Failed to release cart lease {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.repository.CartItemRepository;
+import com.SWD_G4.OrderFlow.repository.CartRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings the price snapshot of cart lines of one product up to date, one bounded chunk per
+ * transaction: one indexed select, one UPDATE of the lines and one UPDATE recomputing the totals
+ * of their carts. Carts without the product are never read.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartRepriceService {
+    
+    private final CartItemRepository cartItemRepository;
+    private final CartRepository cartRepository;
+    private final CartResponseCache cartResponseCache;
+    
+    /**
+     * Reprice up to chunkSize lines of the product after the afterId cursor, in one transaction.
+     */
+    @Transactional
+    public Chunk repriceChunk(Long productId, BigDecimal unitPrice, Long afterId, int chunkSize) {
+        List<Object[]> rows = cartItemRepository.findToReprice(productId, unitPrice, afterId, chunkSize);
+        if (rows.isEmpty()) {
+            return new Chunk(0, afterId);
+        }
+        
+        List<Long> itemIds = new ArrayList<>(rows.size());
+        List<Long> cartIds = new ArrayList<>(rows.size());
+        List<Long> userIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            itemIds.add(((Number) row[0]).longValue());
+            cartIds.add(((Number) row[1]).longValue());
+            userIds.add(((Number) row[2]).longValue());
+        }
+        
+        // One line per cart and product, so cartIds has no duplicates
+        int repriced = cartItemRepository.reprice(itemIds, unitPrice);
+        cartRepository.recomputeTotals(cartIds);
+        cartResponseCache.evictAfterCommit(userIds);
+        
+        log.debug("Repriced {} cart line(s) of product {} to {}", repriced, productId, unitPrice);
+        return new Chunk(rows.size(), itemIds.get(itemIds.size() - 1));
+    }
+    
+    /**
+     * @param repriced lines updated; fewer than the chunk size means the product has no more stale lines
+     */
+    public record Chunk(int repriced, Long lastId) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.configuration.AsyncConfig;
+import com.SWD_G4.OrderFlow.entity.Money;
+import com.SWD_G4.OrderFlow.event.ProductPriceChangedEvent;
+import com.SWD_G4.OrderFlow.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+
+/**
+ * Reprices carts holding a product once a price change commits: carts held by the Redis cart store
+ * first, then the stored lines chunk by chunk through CartRepriceService. The price is read again
+ * when the reprice runs, so after several quick changes the carts end up at the latest one.
+ * Repricing bumps the cart version, so an edit that read the cart before it fails and is retried.
+ */
+@Component
+@Slf4j
+public class CartRepricer {
+    
+    private final CartRepriceService cartRepriceService;
+    private final HotCartStore hotCartStore;
+    private final ProductRepository productRepository;
+    private final Counter repricedLines;
+    
+    @Value("${app.cart.reprice.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.cart.reprice.chunk-size:500}")
+    private int chunkSize;
+    
+    @Value("${app.cart.reprice.pause-ms:20}")
+    private long pauseMs;
+    
+    public CartRepricer(CartRepriceService cartRepriceService,
+                        HotCartStore hotCartStore,
+                        ProductRepository productRepository,
+                        MeterRegistry meterRegistry) {
+        this.cartRepriceService = cartRepriceService;
+        this.hotCartStore = hotCartStore;
+        this.productRepository = productRepository;
+        this.repricedLines = Counter.builder("orderflow.carts.repriced.items")
+                .description("Stored cart lines updated to a changed product price")
+                .register(meterRegistry);
+    }
+    
+    @Async(AsyncConfig.CART_REPRICE_EXECUTOR)
+    @TransactionalEventListener
+    public void on(ProductPriceChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            reprice(event.productId());
+        } catch (RuntimeException e) {
+            log.error("Repricing carts for product {} failed", event.productId(), e);
+        }
+    }
+    
+    private void reprice(Long productId) {
+        BigDecimal price = productRepository.findPriceById(productId).orElse(null);
+        if (price == null) {
+            return;
+        }
+        
+        if (hotCartStore.isEnabled()) {
+            int held = hotCartStore.reprice(productId, Money.of(price), chunkSize);
+            log.info("Repriced product {} in {} cart(s) held in Redis", productId, held);
+        }
+        
+        long total = 0;
+        Long afterId = 0L;
+        CartRepriceService.Chunk chunk;
+        do {
+            chunk = cartRepriceService.repriceChunk(productId, price, afterId, chunkSize);
+            afterId = chunk.lastId();
+            total += chunk.repriced();
+            repricedLines.increment(chunk.repriced());
+        } while (chunk.repriced() == chunkSize && pause());
+        
+        log.info("Repriced {} stored cart line(s) of product {} to {}", total, productId, price);
+    }
+    
+    /**
+     * @return false if interrupted, which ends the run
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.dto.response.CartResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Per-user CartResponse for GET /api/cart with the database cart store, kept in Redis
+ * (cartView::{userId}). Mutations write their response through after commit and operations that
+ * do not build one evict instead, so repeated cart views never reach MySQL. Every put and evict bumps
+ * a per-user generation (cartView::gen::{userId}); a read fills the entry only if the generation it
+ * saw before reading the database is unchanged, so a slow read can resurrect neither an evicted nor
+ * an overwritten cart. Without Redis every call is a no-op.
+ */
+@Component
+@Slf4j
+public class CartResponseCache {
+
+    private static final String KEY_PREFIX = "cartView::";
+    private static final String GENERATION_PREFIX = "cartView::gen::";
+
+    // KEYS: view, generation; ARGV: generation seen before the read, response, ttl ms
+    private static final DefaultRedisScript<Long> FILL_SCRIPT = new DefaultRedisScript<>(
+            "if tonumber(redis.call('GET', KEYS[2]) or '0') ~= tonumber(ARGV[1]) then return 0 end " +
+            "if redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3], 'NX') then return 1 end " +
+            "return 0",
+            Long.class);
+
+    // KEYS: view, generation; ARGV: response, ttl ms
+    private static final DefaultRedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('INCR', KEYS[2]) " +
+            "redis.call('PEXPIRE', KEYS[2], ARGV[2]) " +
+            "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) " +
+            "return 1",
+            Long.class);
+
+    // KEYS: view and generation pairs; ARGV: ttl ms
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #KEYS, 2 do " +
+            "redis.call('INCR', KEYS[i + 1]) " +
+            "redis.call('PEXPIRE', KEYS[i + 1], ARGV[1]) " +
+            "redis.call('DEL', KEYS[i]) " +
+            "end " +
+            "return #KEYS / 2",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.cart.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cart.cache.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    public CartResponseCache(@Autowired(required = false) RedisTemplate<String, Object> redisTemplate,
+                             @Autowired(required = false) @Qualifier("redisObjectMapper") ObjectMapper redisObjectMapper,
+                             ObjectMapper defaultObjectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = redisObjectMapper != null ? redisObjectMapper : defaultObjectMapper;
+    }
+
+    /**
+     * @return the cached response, or null on a miss or when the cache is unavailable
+     */
+    public CartResponse get(Long userId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        try {
+            Object cached = redisTemplate.opsForValue().get(KEY_PREFIX + userId);
+            if (cached == null) {
+                return null;
+            }
+            return cached instanceof CartResponse response
+                    ? response
+                    : objectMapper.convertValue(cached, CartResponse.class);
+        } catch (Exception e) {
+            log.warn("Error reading cart of user {} from cache, falling back to database: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Read before the database read whose result is passed to {@link #fill}.
+     * @return the user's current generation, or null when the cache is unavailable
+     */
+    public Long generation(Long userId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        try {
+            Object generation = redisTemplate.opsForValue().get(GENERATION_PREFIX + userId);
+            return generation == null ? 0L : ((Number) generation).longValue();
+        } catch (Exception e) {
+            log.warn("Error reading cart cache generation of user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cache a response read from the database, unless a put or evict has happened since generation was read.
+     */
+    public void fill(Long userId, Long generation, CartResponse response) {
+        if (!isEnabled() || generation == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute(FILL_SCRIPT, List.of(KEY_PREFIX + userId, GENERATION_PREFIX + userId),
+                    generation, response, ttl().toMillis());
+        } catch (Exception e) {
+            log.warn("Error caching cart of user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Cache the response of a cart mutation once the current transaction commits.
+     */
+    public void putAfterCommit(Long userId, CartResponse response) {
+        if (isEnabled()) {
+            afterCommit(() -> redisTemplate.execute(PUT_SCRIPT,
+                    List.of(KEY_PREFIX + userId, GENERATION_PREFIX + userId), response, ttl().toMillis()));
+        }
+    }
+
+    /**
+     * Drop the cached responses of these users once the current transaction commits.
+     */
+    public void evictAfterCommit(Collection<Long> userIds) {
+        if (isEnabled() && !userIds.isEmpty()) {
+            List<String> keys = new ArrayList<>(userIds.size() * 2);
+            for (Long userId : userIds) {
+                keys.add(KEY_PREFIX + userId);
+                keys.add(GENERATION_PREFIX + userId);
+            }
+            afterCommit(() -> redisTemplate.execute(EVICT_SCRIPT, keys, ttl().toMillis()));
+        }
+    }
+
+    public void evictAfterCommit(Long userId) {
+        evictAfterCommit(List.of(userId));
+    }
+
+    private boolean isEnabled() {
+        return enabled && redisTemplate != null;
+    }
+
+    private Duration ttl() {
+        return Duration.ofMinutes(ttlMinutes);
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable guarded = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // The entry may now be stale; the TTL bounds how long
+                log.warn("Error updating cart cache: {}", e.getMessage());
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            guarded.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                guarded.run();
+            }
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.SWD_G4.OrderFlow.service;
 
 import com.SWD_G4.OrderFlow.dto.request.AddToCartRequest;
+import com.SWD_G4.OrderFlow.dto.request.CartOperation;
 import com.SWD_G4.OrderFlow.dto.request.UpdateCartItemRequest;
 import com.SWD_G4.OrderFlow.dto.response.CartResponse;
 import com.SWD_G4.OrderFlow.entity.*;
@@ -9,14 +10,25 @@ import com.SWD_G4.OrderFlow.exception.ErrorCode;
 import com.SWD_G4.OrderFlow.mapper.CartMapper;
 import com.SWD_G4.OrderFlow.repository.CartItemRepository;
 import com.SWD_G4.OrderFlow.repository.CartRepository;
+import com.SWD_G4.OrderFlow.repository.ProductRepository;
+import com.SWD_G4.OrderFlow.repository.UserRepository;
 import com.SWD_G4.OrderFlow.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import jakarta.persistence.EntityManager;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,16 +37,31 @@ public class CartService {
     
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
     private final ProductService productService;
+    private final HotCartStore hotCartStore;
+    private final CartResponseCache cartResponseCache;
     private final CartMapper cartMapper;
     private final EntityManager entityManager;
     
-    @Transactional(readOnly = true)
+    /**
+     * Served from CartResponseCache when possible. Not transactional, so a cache hit never borrows a
+     * connection; a miss is a single fetch-join query. Reading never creates the cart row, the first write does.
+     */
     public CartResponse getCart(User user) {
-        // Always return a fresh, recalculated cart snapshot
-        // Create cart if missing, then refresh from DB
-        cartRepository.findByUser(user).orElseGet(() -> createCartForUser(user));
-        return refreshCartResponse(user);
+        CartResponse cached = cartResponseCache.get(user.getId());
+        if (cached != null) {
+            return cached;
+        }
+        
+        // Taken before the read, so a write committing meanwhile turns the fill into a no-op
+        Long generation = cartResponseCache.generation(user.getId());
+        CartResponse cart = cartRepository.findByUserWithItems(user)
+                .map(cartMapper::toCartResponse)
+                .orElseGet(() -> cartMapper.emptyCartResponse(user.getId()));
+        cartResponseCache.fill(user.getId(), generation, cart);
+        return cart;
     }
     
     @Transactional
@@ -55,15 +82,14 @@ public class CartService {
             throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
         }
         
-        // Get or create cart for user
+        // Get or create cart for user; items and their products come with it in one query
         Cart cart = cartRepository.findByUserWithItems(user)
                 .orElseGet(() -> createCartForUser(user));
         
-        log.info("Cart ID: {}, Current cart items count: {}", 
-                cart.getId(), cart.getCartItems() != null ? cart.getCartItems().size() : 0);
-        
         // Check if product already exists in cart
-        Optional<CartItem> existingCartItem = cartItemRepository.findByCartAndProduct(cart, product);
+        Optional<CartItem> existingCartItem = cart.getCartItems().stream()
+                .filter(item -> item.getProduct().getId().equals(product.getId()))
+                .findFirst();
         
         if (existingCartItem.isPresent()) {
             // Update existing cart item
@@ -75,30 +101,26 @@ public class CartService {
                 throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
             }
             
-            cartItem.setQuantity(newQuantity);
-            cartItem.calculateTotalPrice();
-            cartItemRepository.save(cartItem);
+            cart.adjustTotalAmount(cartItem.changeQuantity(newQuantity));
             log.info("Updated existing cart item, new quantity: {}", newQuantity);
         } else {
-            // Create new cart item
-            CartItem cartItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(request.getQuantity())
-                    .unitPrice(product.getPrice())
-                    .build();
+            // Upsert rather than insert: another node may have added the same product meanwhile
+            cartItemRepository.upsertQuantity(cart.getId(), product.getId(), request.getQuantity(), product.getPrice());
+            CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
+                    .orElseThrow(() -> new AppException(ErrorCode.CART_ITEM_NOT_FOUND));
             
-            // Calculate total price manually
-            cartItem.calculateTotalPrice();
-            cartItemRepository.save(cartItem);
+            if (product.getStockQuantity() < cartItem.getQuantity()) {
+                throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
+            }
+            
+            cart.getCartItems().add(cartItem);
+            cart.adjustTotalAmount(cartItem.getUnitPrice().times(request.getQuantity()));
             log.info("Created new cart item with ID: {}", cartItem.getId());
         }
         
-        CartResponse response = refreshCartResponse(user);
-        
-        log.info("Cart updated - Total amount: {}", response.getTotalAmount());
+        log.info("Cart updated - Total amount: {}", cart.getTotalAmount());
         
-        return response;
+        return cacheAfterCommit(user, cart);
     }
     
     @Transactional
@@ -106,24 +128,17 @@ public class CartService {
         Cart cart = cartRepository.findByUserWithItems(user)
                 .orElseThrow(() -> new AppException(ErrorCode.CART_NOT_FOUND));
         
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new AppException(ErrorCode.CART_ITEM_NOT_FOUND));
-        
-        // Verify cart item belongs to user's cart
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
-        }
+        // Only items of the user's own cart can be found this way
+        CartItem cartItem = findCartItem(cart, cartItemId);
         
         // Check stock availability
         if (cartItem.getProduct().getStockQuantity() < request.getQuantity()) {
             throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
         }
         
-        cartItem.setQuantity(request.getQuantity());
-        cartItem.calculateTotalPrice();
-        cartItemRepository.save(cartItem);
+        cart.adjustTotalAmount(cartItem.changeQuantity(request.getQuantity()));
         
-        return refreshCartResponse(user);
+        return cacheAfterCommit(user, cart);
     }
     
     @Transactional
@@ -133,90 +148,267 @@ public class CartService {
         Cart cart = cartRepository.findByUserWithItems(user)
                 .orElseThrow(() -> new AppException(ErrorCode.CART_NOT_FOUND));
         
-        log.info("Found cart ID: {} with {} items", cart.getId(), 
-                cart.getCartItems() != null ? cart.getCartItems().size() : 0);
-        
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new AppException(ErrorCode.CART_ITEM_NOT_FOUND));
-        
-        // Verify cart item belongs to user's cart
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            log.error("Cart item {} does not belong to cart {}", cartItemId, cart.getId());
-            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
-        }
+        CartItem cartItem = findCartItem(cart, cartItemId);
         
         log.info("Deleting cart item - Product: {}, Quantity: {}", 
                 cartItem.getProduct().getName(), cartItem.getQuantity());
         
-        // Remove from cart's collection first (triggers orphanRemoval)
-        if (cart.getCartItems() != null) {
-            boolean removed = cart.getCartItems().remove(cartItem);
-            log.info("Removed from collection: {}", removed);
-        }
-        
-        // Save cart to persist the collection change
-        cartRepository.save(cart);
-        
-        // Then delete explicitly from repository
-        cartItemRepository.delete(cartItem);
-        
-        // Flush to database immediately
-        entityManager.flush();
+        // Removing from the collection deletes the row (orphanRemoval) at commit
+        cart.getCartItems().remove(cartItem);
+        cart.adjustTotalAmount(cartItem.getTotalPrice().negate());
         
-        log.info("Cart item deleted and flushed to database");
-        
-        return refreshCartResponse(user);
+        return cacheAfterCommit(user, cart);
     }
     
     @Transactional
     public void clearCart(User user) {
         log.info("Attempting to clear cart for user: {}", user.getUsername());
         
-        Cart cart = cartRepository.findByUserWithItems(user)
+        // The cart is never loaded, so there is no managed copy to go stale
+        Long cartId = cartRepository.findIdByUser(user)
                 .orElseThrow(() -> new AppException(ErrorCode.CART_NOT_FOUND));
         
-        int itemCount = cart.getCartItems() != null ? cart.getCartItems().size() : 0;
-        log.info("Found cart ID: {} with {} items to delete", cart.getId(), itemCount);
+        int itemCount = cartItemRepository.deleteByCart(cartRepository.getReferenceById(cartId));
+        cartRepository.resetTotalAmount(cartId);
+        cartResponseCache.evictAfterCommit(user.getId());
         
-        // Clear the collection first (triggers orphanRemoval due to cascade)
-        if (cart.getCartItems() != null && !cart.getCartItems().isEmpty()) {
-            cart.getCartItems().clear();
-            log.info("Cleared cart items collection");
+        log.info("Cart cleared successfully - {} items deleted", itemCount);
+    }
+    
+    /**
+     * Empty a cart that is loaded in the current persistence context (after checkout) with two
+     * set-based statements. The cart and its items are then detached: their in-memory state no
+     * longer matches the rows, and clearing the collection instead would make orphanRemoval
+     * delete every item again, one statement per row.
+     */
+    @Transactional
+    public void emptyCart(Cart cart) {
+        cartItemRepository.deleteByCart(cart);
+        cartRepository.resetTotalAmount(cart.getId());
+        cartResponseCache.evictAfterCommit(cart.getUser().getId());
+        entityManager.detach(cart);
+    }
+    
+    /**
+     * Apply a list of add/set/remove operations in one transaction: one cart load, one bulk product
+     * lookup and one stock check per product against its final quantity.
+     */
+    @Transactional
+    public CartResponse applyBatch(User user, List<CartOperation> operations) {
+        Cart cart = cartRepository.findByUserWithItems(user)
+                .orElseGet(() -> createCartForUser(user));
+        
+        Map<Long, CartItem> items = cart.getCartItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity(), (first, second) -> first));
+        Map<Long, Integer> current = items.values().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), CartItem::getQuantity));
+        
+        Map<Long, Integer> planned = planBatch(current, operations);
+        Map<Long, Product> products = productService.findAllById(productsToCheck(planned));
+        validateBatch(planned, current, products);
+        
+        List<CartItem> created = new ArrayList<>();
+        planned.forEach((productId, quantity) -> {
+            CartItem cartItem = items.get(productId);
+            if (cartItem == null) {
+                if (quantity > 0) {
+                    CartItem newItem = CartItem.builder()
+                            .cart(cart)
+                            .product(products.get(productId))
+                            .quantity(quantity)
+                            .unitPrice(Money.of(products.get(productId).getPrice()))
+                            .build();
+                    newItem.calculateTotalPrice();
+                    cart.getCartItems().add(newItem);
+                    cart.adjustTotalAmount(newItem.getTotalPrice());
+                    created.add(newItem);
+                }
+            } else if (quantity == 0) {
+                cart.getCartItems().remove(cartItem);
+                cart.adjustTotalAmount(cartItem.getTotalPrice().negate());
+            } else if (quantity != cartItem.getQuantity()) {
+                cart.adjustTotalAmount(cartItem.changeQuantity(quantity));
+            }
+        });
+        cartItemRepository.saveAll(created);
+        
+        log.info("Applied {} cart operation(s) for user {} - Total amount: {}",
+                operations.size(), user.getUsername(), cart.getTotalAmount());
+        
+        return cacheAfterCommit(user, cart);
+    }
+    
+    /**
+     * Replay the operations over the current quantities.
+     * @return final quantity of every product the operations touch (0 = removed), in first-touch order
+     */
+    static Map<Long, Integer> planBatch(Map<Long, Integer> current, List<CartOperation> operations) {
+        Map<Long, Integer> planned = new LinkedHashMap<>();
+        for (CartOperation operation : operations) {
+            Long productId = operation.getProductId();
+            Integer requested = operation.getQuantity();
+            int quantity = planned.getOrDefault(productId, current.getOrDefault(productId, 0));
+            switch (operation.getType()) {
+                case ADD -> {
+                    if (requested == null || requested < 1) {
+                        throw new AppException(ErrorCode.INVALID_CART_OPERATION);
+                    }
+                    quantity += requested;
+                }
+                case SET -> {
+                    if (requested == null) {
+                        throw new AppException(ErrorCode.INVALID_CART_OPERATION);
+                    }
+                    quantity = requested;
+                }
+                case REMOVE -> quantity = 0;
+            }
+            planned.put(productId, quantity);
+        }
+        return planned;
+    }
+    
+    static List<Long> productsToCheck(Map<Long, Integer> planned) {
+        return planned.entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+    
+    /**
+     * Same rules as the single-item endpoints: products must exist, only active products may grow,
+     * and every remaining quantity must be in stock.
+     */
+    static void validateBatch(Map<Long, Integer> planned, Map<Long, Integer> current, Map<Long, Product> products) {
+        planned.forEach((productId, quantity) -> {
+            if (quantity == 0) {
+                return;
+            }
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new AppException(ErrorCode.PRODUCT_NOT_FOUND);
+            }
+            if (quantity > current.getOrDefault(productId, 0) && !product.getIsActive()) {
+                throw new AppException(ErrorCode.PRODUCT_NOT_AVAILABLE);
+            }
+            if (product.getStockQuantity() < quantity) {
+                throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
+            }
+        });
+    }
+    
+    /**
+     * The cart to check out. With the Redis cart store the hot copy is written to carts/cart_items
+     * first, and the ordered lines are dropped from Redis once the order commits. The caller holds
+     * the user's CartMutationLock around the whole checkout transaction.
+     */
+    @Transactional
+    public Cart loadCheckoutCart(User user) {
+        if (hotCartStore.isEnabled()) {
+            HotCartStore.Snapshot snapshot = hotCartStore.snapshot(user.getId());
+            if (snapshot != null) {
+                if (snapshot.lines().isEmpty()) {
+                    // The Redis copy is authoritative; whatever the database still holds is stale
+                    throw new AppException(ErrorCode.EMPTY_CART);
+                }
+                Cart cart = persistHotCart(user.getId(), snapshot);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        hotCartStore.release(user.getId(), snapshot);
+                    }
+                });
+                return cart;
+            }
         }
         
-        // Save cart to persist the collection change
-        cartRepository.save(cart);
+        return cartRepository.findByUserWithItems(user)
+                .orElseThrow(() -> new AppException(ErrorCode.CART_NOT_FOUND));
+    }
+    
+    /**
+     * Make the stored cart match a Redis snapshot: changed lines are updated, missing ones removed
+     * and new ones inserted. Products deleted in the meantime are dropped from the cart.
+     * @return the stored cart, or null when the snapshot is empty and the user has no cart row
+     */
+    @Transactional
+    public Cart persistHotCart(Long userId, HotCartStore.Snapshot snapshot) {
+        User user = userRepository.getReferenceById(userId);
+        Optional<Cart> stored = cartRepository.findByUserWithItems(user);
+        if (stored.isEmpty() && snapshot.lines().isEmpty()) {
+            // Nothing to keep; a row is only created once the cart holds something
+            return null;
+        }
+        Cart cart = stored.orElseGet(() -> createCartForUser(user));
+        if (cart.getCartItems() == null) {
+            cart.setCartItems(new ArrayList<>());
+        }
         
-        // Then delete all items explicitly from repository
-        cartItemRepository.deleteByCart(cart);
+        Map<Long, HotCartStore.Line> lines = snapshot.lines().stream()
+                .collect(Collectors.toMap(HotCartStore.Line::productId, Function.identity()));
         
-        // Flush to database immediately
-        entityManager.flush();
+        Iterator<CartItem> existing = cart.getCartItems().iterator();
+        while (existing.hasNext()) {
+            CartItem cartItem = existing.next();
+            HotCartStore.Line line = lines.remove(cartItem.getProduct().getId());
+            if (line == null) {
+                existing.remove();
+                continue;
+            }
+            cartItem.setQuantity(line.quantity());
+            cartItem.setUnitPrice(line.unitPrice());
+            cartItem.calculateTotalPrice();
+        }
         
-        log.info("Cart cleared successfully - {} items deleted", itemCount);
+        if (!lines.isEmpty()) {
+            List<Product> products = productRepository.findAllById(lines.keySet());
+            for (Product product : products) {
+                HotCartStore.Line line = lines.get(product.getId());
+                CartItem cartItem = CartItem.builder()
+                        .cart(cart)
+                        .product(product)
+                        .quantity(line.quantity())
+                        .unitPrice(line.unitPrice())
+                        .build();
+                cartItem.calculateTotalPrice();
+                cart.getCartItems().add(cartItem);
+            }
+            if (products.size() < lines.size()) {
+                log.warn("Dropped {} deleted product(s) while persisting cart of user {}",
+                        lines.size() - products.size(), userId);
+            }
+        }
         
-        refreshCartResponse(user);
+        cart.calculateTotalAmount();
+        cartResponseCache.evictAfterCommit(userId);
+        return cartRepository.save(cart);
+    }
+    
+    /**
+     * Map the mutated cart and write it through to the cart cache once the transaction commits.
+     */
+    private CartResponse cacheAfterCommit(User user, Cart cart) {
+        // Flush first so updatedAt (set on flush) and new item ids are what the cached copy carries
+        entityManager.flush();
+        CartResponse response = cartMapper.toCartResponse(cart);
+        cartResponseCache.putAfterCommit(user.getId(), response);
+        return response;
+    }
+    
+    private CartItem findCartItem(Cart cart, Long cartItemId) {
+        return cart.getCartItems().stream()
+                .filter(item -> item.getId().equals(cartItemId))
+                .findFirst()
+                .orElseThrow(() -> new AppException(ErrorCode.CART_ITEM_NOT_FOUND));
     }
     
     private Cart createCartForUser(User user) {
         Cart cart = Cart.builder()
                 .user(user)
-                .totalAmount(java.math.BigDecimal.ZERO)
+                .cartItems(new ArrayList<>())
+                .totalAmount(Money.ZERO)
                 .build();
         
         return cartRepository.save(cart);
     }
-    
-    private CartResponse refreshCartResponse(User user) {
-        entityManager.flush();
-        entityManager.clear();
-        
-        Cart refreshedCart = cartRepository.findByUserWithItems(user)
-                .orElseThrow(() -> new AppException(ErrorCode.CART_NOT_FOUND));
-        
-        refreshedCart.calculateTotalAmount();
-        cartRepository.save(refreshedCart);
-        
-        return cartMapper.toCartResponse(refreshedCart);
-    }
 }
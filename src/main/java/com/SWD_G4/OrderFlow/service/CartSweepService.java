@@ -0,0 +1,113 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.entity.OutboxEvent;
+import com.SWD_G4.OrderFlow.event.CartAbandonedMessage;
+import com.SWD_G4.OrderFlow.repository.CartItemRepository;
+import com.SWD_G4.OrderFlow.repository.CartRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Deletes carts (and their items) that have not changed since a cutoff, one bounded chunk per
+ * transaction. Carts currently held by the Redis cart store are left alone: their database row is
+ * behind and they will be written back when they go idle.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartSweepService {
+    
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final HotCartStore hotCartStore;
+    private final OutboxService outboxService;
+    private final CartResponseCache cartResponseCache;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${app.cart.sweeper.abandoned-events.enabled:false}")
+    private boolean abandonedEventsEnabled;
+    
+    /**
+     * Sweep up to chunkSize idle carts after the (afterUpdatedAt, afterId) cursor, in one transaction.
+     * With app.cart.sweeper.abandoned-events.enabled, carts that still had items are reported through the outbox.
+     */
+    @Transactional
+    public Chunk sweepChunk(LocalDateTime before, LocalDateTime afterUpdatedAt, Long afterId, int chunkSize) {
+        List<Object[]> rows = cartRepository.lockIdleAfter(before, afterUpdatedAt, afterId, chunkSize);
+        if (rows.isEmpty()) {
+            return new Chunk(0, 0, 0, 0, afterUpdatedAt, afterId);
+        }
+        
+        Set<Long> held = hotCartStore.heldAmong(rows.stream().map(row -> toLong(row[1])).toList());
+        List<Long> cartIds = new ArrayList<>(rows.size());
+        List<Long> userIds = new ArrayList<>(rows.size());
+        List<Map.Entry<Long, String>> abandoned = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long userId = toLong(row[1]);
+            if (held.contains(userId)) {
+                continue;
+            }
+            cartIds.add(toLong(row[0]));
+            userIds.add(userId);
+            int itemCount = ((Number) row[4]).intValue();
+            if (abandonedEventsEnabled && itemCount > 0) {
+                abandoned.add(entry(new CartAbandonedMessage(CartAbandonedMessage.SCHEMA_VERSION,
+                        UUID.randomUUID().toString(), toLong(row[0]), userId, itemCount,
+                        (BigDecimal) row[3], toLocalDateTime(row[2]), Instant.now())));
+            }
+        }
+        
+        int items = 0;
+        int carts = 0;
+        if (!cartIds.isEmpty()) {
+            outboxService.enqueuePayloads(OutboxEvent.EventType.CART_ABANDONED, abandoned);
+            items = cartItemRepository.deleteAllByCartIdIn(cartIds);
+            carts = cartRepository.deleteAllByIdIn(cartIds);
+            cartResponseCache.evictAfterCommit(userIds);
+        }
+        
+        Object[] last = rows.get(rows.size() - 1);
+        log.debug("Swept {} idle cart(s) with {} item(s), skipped {} held in Redis", carts, items, held.size());
+        return new Chunk(rows.size(), carts, items, abandoned.size(), toLocalDateTime(last[2]), toLong(last[0]));
+    }
+    
+    private Map.Entry<Long, String> entry(CartAbandonedMessage message) {
+        try {
+            return new AbstractMap.SimpleImmutableEntry<>(message.userId(), objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cart event", e);
+        }
+    }
+    
+    private static Long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+    
+    // Native queries may hand back either type depending on driver and Hibernate settings
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : (LocalDateTime) value;
+    }
+    
+    /**
+     * @param scanned rows read; fewer than the chunk size means the sweep reached the cutoff
+     */
+    public record Chunk(int scanned, int deletedCarts, int deletedItems, int abandonedEvents,
+                        LocalDateTime lastUpdatedAt, Long lastId) {
+    }
+}
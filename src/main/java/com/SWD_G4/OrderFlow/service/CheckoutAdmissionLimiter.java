@@ -0,0 +1,46 @@
+package com.SWD_G4.OrderFlow.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of checkouts running at once on this node. Requests over the limit are
+ * rejected immediately instead of queueing for a DB connection, so a spike cannot starve
+ * the pool for everyone else.
+ */
+@Service
+public class CheckoutAdmissionLimiter {
+    
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final Counter rejections;
+    
+    public CheckoutAdmissionLimiter(@Value("${app.rate-limit.checkout.max-concurrent:32}") int maxConcurrent,
+                                    MeterRegistry meterRegistry) {
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.rejections = Counter.builder("orderflow.checkout.rejected")
+                .description("Checkouts shed because the concurrency limit was reached")
+                .register(meterRegistry);
+        meterRegistry.gauge("orderflow.checkout.in_flight", permits, p -> this.maxConcurrent - p.availablePermits());
+    }
+    
+    /**
+     * @return true if a permit was taken; the caller must then call {@link #release()}
+     */
+    public boolean tryAdmit() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        rejections.increment();
+        return false;
+    }
+    
+    public void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,107 @@
+package com.SWD_G4.OrderFlow.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the orders accepted by {@link FlashSaleSequencer} off the request path, several per
+ * transaction. An allocation that cannot be written (after a one-by-one retry) gets its stock
+ * released back to the sequencer and is recorded as a FAILED order, which notifies the customer.
+ */
+@Component
+@Slf4j
+public class FlashSaleOrderPersister {
+    
+    private final FlashSaleSequencer sequencer;
+    private final OrderService orderService;
+    private volatile boolean running;
+    private Thread worker;
+    
+    @Value("${app.flash-sale.persist-batch-size:50}")
+    private int batchSize;
+    
+    public FlashSaleOrderPersister(FlashSaleSequencer sequencer, OrderService orderService) {
+        this.sequencer = sequencer;
+        this.orderService = orderService;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!sequencer.isEnabled()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "flash-sale-persister");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+    
+    private void run() {
+        List<FlashSaleSequencer.Allocation> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                FlashSaleSequencer.Allocation first = sequencer.pollAccepted(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                sequencer.drainAccepted(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void persist(List<FlashSaleSequencer.Allocation> batch) {
+        try {
+            orderService.persistFlashSaleOrders(batch);
+            return;
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                giveUp(batch.get(0), e);
+                return;
+            }
+            log.warn("Persisting {} flash-sale orders failed ({}), retrying one by one", batch.size(), e.getMessage());
+        }
+        
+        for (FlashSaleSequencer.Allocation allocation : batch) {
+            try {
+                orderService.persistFlashSaleOrders(List.of(allocation));
+            } catch (RuntimeException e) {
+                giveUp(allocation, e);
+            }
+        }
+    }
+    
+    private void giveUp(FlashSaleSequencer.Allocation allocation, RuntimeException e) {
+        log.error("Could not persist flash-sale order {}; releasing {} unit(s) of product {}",
+                allocation.orderNumber(), allocation.quantity(), allocation.productId(), e);
+        sequencer.release(allocation.productId(), allocation.quantity());
+        try {
+            orderService.recordFailedFlashSaleOrder(allocation);
+        } catch (RuntimeException failure) {
+            log.error("Could not record flash-sale order {} as failed; user {} was not notified",
+                    allocation.orderNumber(), allocation.userId(), failure);
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.entity.PaymentMethod;
+import com.SWD_G4.OrderFlow.entity.Product;
+import com.SWD_G4.OrderFlow.event.ReservedStockReleasedEvent;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import com.SWD_G4.OrderFlow.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Allocates stock of flash-sale products in strict arrival order without touching the database.
+ * Products are spread over shards by id. Each shard has a preallocated ring buffer that request
+ * threads publish into, and one writer thread that owns the in-memory stock of its products and
+ * decides every request in sequence, so there is no lock and no row contention. Accepted allocations
+ * are handed to {@link FlashSaleOrderPersister}, which writes the orders asynchronously.
+ * <p>
+ * Stock is loaded ("armed") from the products flagged as flash sale at startup and on refresh.
+ * Allocations accepted but not yet persisted are lost if the process dies.
+ * <p>
+ * In-memory stock is only correct with a single owner, so the sequencer holds a MySQL named lock
+ * (GET_LOCK) on a dedicated connection: a second instance with the sale enabled refuses to start,
+ * and an instance that loses the lock stops selling.
+ */
+@Service
+@Slf4j
+public class FlashSaleSequencer {
+    
+    public record Allocation(String orderNumber, Long userId, Long productId, int quantity, BigDecimal unitPrice,
+                             PaymentMethod paymentMethod, String shippingAddress, String notes) {
+    }
+    
+    private static final String OWNER_LOCK = "orderflow.flash-sale.sequencer";
+    
+    private final ProductRepository productRepository;
+    private final DataSource dataSource;
+    private final Counter accepted;
+    private final Counter rejected;
+    private final LinkedBlockingQueue<Allocation> acceptedAllocations = new LinkedBlockingQueue<>();
+    private volatile List<Shard> shards = List.of();
+    // Holds the owner lock for as long as it stays open
+    private Connection ownerConnection;
+    
+    @Value("${app.flash-sale.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${app.flash-sale.shards:4}")
+    private int shardCount;
+    
+    @Value("${app.flash-sale.ring-size:4096}")
+    private int ringSize;
+    
+    @Value("${app.flash-sale.decision-timeout-ms:1000}")
+    private long decisionTimeoutMs;
+    
+    public FlashSaleSequencer(ProductRepository productRepository, DataSource dataSource, MeterRegistry meterRegistry) {
+        this.productRepository = productRepository;
+        this.dataSource = dataSource;
+        this.accepted = Counter.builder("orderflow.flashsale.decisions").tag("outcome", "accepted")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("orderflow.flashsale.decisions").tag("outcome", "rejected")
+                .register(meterRegistry);
+        meterRegistry.gauge("orderflow.flashsale.unpersisted", acceptedAllocations, LinkedBlockingQueue::size);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        acquireOwnership();
+        // Power of two so the slot index is a mask instead of a modulo
+        int capacity = Integer.highestOneBit(Math.max(2, ringSize - 1)) << 1;
+        List<Shard> started = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = new Shard(capacity);
+            Thread writer = new Thread(shard, "flash-sale-writer-" + i);
+            writer.setDaemon(true);
+            shard.writer = writer;
+            started.add(shard);
+            writer.start();
+        }
+        shards = List.copyOf(started);
+        armFlaggedProducts();
+        log.info("Flash-sale sequencer started: {} shard(s), ring size {}", shardCount, capacity);
+    }
+    
+    @PreDestroy
+    void stop() {
+        shards.forEach(shard -> {
+            shard.running = false;
+            shard.writer.interrupt();
+        });
+        shards = List.of();
+        releaseOwnership();
+    }
+    
+    /**
+     * Load stock of newly flagged products. Products already armed keep their in-memory stock,
+     * which is authoritative while the sale runs.
+     */
+    @Scheduled(fixedDelayString = "${app.flash-sale.refresh-interval-ms:60000}")
+    public void armFlaggedProducts() {
+        if (!enabled || shards.isEmpty()) {
+            return;
+        }
+        if (!stillOwner()) {
+            log.error("Lost the flash-sale owner lock; this instance stops selling flash-sale stock");
+            stop();
+            return;
+        }
+        for (Product product : productRepository.findByFlashSaleTrueAndIsActiveTrue()) {
+            StockState state = new StockState(product.getStockQuantity(), product.getPrice());
+            if (shardFor(product.getId()).stock.putIfAbsent(product.getId(), state) == null) {
+                log.info("Armed flash-sale product {} with {} unit(s)", product.getId(), product.getStockQuantity());
+            }
+        }
+    }
+    
+    /**
+     * Request stock for one order. Returns within microseconds under normal load.
+     * @throws AppException FLASH_SALE_SOLD_OUT when the stock is gone, CHECKOUT_OVERLOADED when the ring is full
+     */
+    public Allocation allocate(Long userId, Long productId, int quantity, PaymentMethod paymentMethod,
+                               String shippingAddress, String notes) {
+        if (!enabled || shards.isEmpty()) {
+            throw new AppException(ErrorCode.PRODUCT_NOT_IN_FLASH_SALE);
+        }
+        Shard shard = shardFor(productId);
+        if (!shard.stock.containsKey(productId)) {
+            throw new AppException(ErrorCode.PRODUCT_NOT_IN_FLASH_SALE);
+        }
+        
+        CompletableFuture<Allocation> decision = new CompletableFuture<>();
+        boolean published = shard.publish(slot -> {
+            slot.type = SlotType.ALLOCATE;
+            slot.orderNumber = OrderService.generateOrderNumber();
+            slot.userId = userId;
+            slot.productId = productId;
+            slot.quantity = quantity;
+            slot.paymentMethod = paymentMethod;
+            slot.shippingAddress = shippingAddress;
+            slot.notes = notes;
+            slot.decision = decision;
+        });
+        if (!published) {
+            throw new AppException(ErrorCode.CHECKOUT_OVERLOADED);
+        }
+        
+        Allocation allocation;
+        try {
+            allocation = decision.get(decisionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The writer skips cancelled requests, so no stock is taken for a caller that gave up
+            decision.cancel(false);
+            throw new AppException(ErrorCode.CHECKOUT_OVERLOADED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            decision.cancel(false);
+            throw new AppException(ErrorCode.CHECKOUT_OVERLOADED);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        
+        if (allocation == null) {
+            throw new AppException(ErrorCode.FLASH_SALE_SOLD_OUT);
+        }
+        return allocation;
+    }
+    
+    /**
+     * Give stock back, e.g. when an accepted allocation could not be persisted.
+     * Goes through the ring like any request so the writer stays the only one changing stock.
+     */
+    public void release(Long productId, int quantity) {
+        List<Shard> current = shards;
+        if (current.isEmpty()) {
+            // Stopped: the stock is re-armed from the database by the next owner
+            return;
+        }
+        Shard shard = current.get((int) Math.floorMod(productId, (long) current.size()));
+        while (!shard.publish(slot -> {
+            slot.type = SlotType.RELEASE;
+            slot.productId = productId;
+            slot.quantity = quantity;
+        })) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+    }
+    
+    /**
+     * Cancelled flash-sale orders gave their stock back to the database; return it to the sale as well.
+     */
+    @TransactionalEventListener
+    public void on(ReservedStockReleasedEvent event) {
+        if (!enabled || shards.isEmpty()) {
+            return;
+        }
+        event.quantities().forEach((productId, quantity) -> {
+            if (shardFor(productId).stock.containsKey(productId)) {
+                release(productId, quantity);
+            }
+        });
+    }
+    
+    /**
+     * Next accepted allocation to persist, or null after the timeout.
+     */
+    Allocation pollAccepted(long timeout, TimeUnit unit) throws InterruptedException {
+        return acceptedAllocations.poll(timeout, unit);
+    }
+    
+    void drainAccepted(List<Allocation> target, int max) {
+        acceptedAllocations.drainTo(target, max);
+    }
+    
+    private void acquireOwnership() {
+        try {
+            Connection connection = dataSource.getConnection();
+            if (!queryFlag(connection, "SELECT GET_LOCK(?, 0)")) {
+                connection.close();
+                throw new IllegalStateException("The flash sale is already running on another instance; "
+                        + "set app.flash-sale.enabled on one instance only");
+            }
+            ownerConnection = connection;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not take the flash-sale owner lock", e);
+        }
+    }
+    
+    private boolean stillOwner() {
+        try {
+            return queryFlag(ownerConnection, "SELECT IS_USED_LOCK(?) = CONNECTION_ID()");
+        } catch (SQLException e) {
+            log.warn("Could not check the flash-sale owner lock: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    private void releaseOwnership() {
+        if (ownerConnection == null) {
+            return;
+        }
+        try (Connection connection = ownerConnection) {
+            queryFlag(connection, "SELECT RELEASE_LOCK(?)");
+        } catch (SQLException e) {
+            // Closing the connection drops the lock anyway
+            log.warn("Could not release the flash-sale owner lock: {}", e.getMessage());
+        }
+        ownerConnection = null;
+    }
+    
+    private static boolean queryFlag(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, OWNER_LOCK);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getInt(1) == 1;
+            }
+        }
+    }
+    
+    private Shard shardFor(Long productId) {
+        return shards.get((int) Math.floorMod(productId, (long) shards.size()));
+    }
+    
+    private enum SlotType {
+        ALLOCATE, RELEASE
+    }
+    
+    // Reused ring entry. Plain fields are written before the volatile sequence and read after it.
+    private static final class Slot {
+        volatile long sequence = -1;
+        SlotType type;
+        String orderNumber;
+        Long userId;
+        Long productId;
+        int quantity;
+        PaymentMethod paymentMethod;
+        String shippingAddress;
+        String notes;
+        CompletableFuture<Allocation> decision;
+        
+        void clear() {
+            orderNumber = null;
+            shippingAddress = null;
+            notes = null;
+            decision = null;
+        }
+    }
+    
+    // Only the shard's writer thread changes remaining
+    private static final class StockState {
+        volatile int remaining;
+        final BigDecimal unitPrice;
+        
+        StockState(int remaining, BigDecimal unitPrice) {
+            this.remaining = remaining;
+            this.unitPrice = unitPrice;
+        }
+    }
+    
+    private interface SlotWriter {
+        void write(Slot slot);
+    }
+    
+    private final class Shard implements Runnable {
+        private static final int SPINS_BEFORE_PARK = 1000;
+        
+        final Slot[] slots;
+        final int mask;
+        final Map<Long, StockState> stock = new ConcurrentHashMap<>();
+        // Next sequence a producer may claim
+        final AtomicLong claimed = new AtomicLong();
+        // Next sequence the writer will process; everything below it is done and its slot reusable
+        volatile long consumed;
+        volatile boolean running = true;
+        Thread writer;
+        
+        Shard(int capacity) {
+            this.slots = new Slot[capacity];
+            this.mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                slots[i] = new Slot();
+            }
+        }
+        
+        /**
+         * Claim the next sequence and fill its slot; false if the ring is full.
+         */
+        boolean publish(SlotWriter slotWriter) {
+            long sequence;
+            do {
+                sequence = claimed.get();
+                if (sequence - consumed >= slots.length) {
+                    return false;
+                }
+            } while (!claimed.compareAndSet(sequence, sequence + 1));
+            
+            Slot slot = slots[(int) (sequence & mask)];
+            slotWriter.write(slot);
+            slot.sequence = sequence;
+            return true;
+        }
+        
+        @Override
+        public void run() {
+            long next = 0;
+            int idleSpins = 0;
+            while (running) {
+                Slot slot = slots[(int) (next & mask)];
+                if (slot.sequence != next) {
+                    // Spin briefly for low latency under load, then back off to save the CPU
+                    if (++idleSpins < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+                    }
+                    continue;
+                }
+                idleSpins = 0;
+                
+                try {
+                    process(slot);
+                } catch (RuntimeException e) {
+                    log.error("Flash-sale writer failed on sequence {}", next, e);
+                    if (slot.decision != null) {
+                        slot.decision.completeExceptionally(e);
+                    }
+                }
+                slot.clear();
+                consumed = ++next;
+            }
+        }
+        
+        private void process(Slot slot) {
+            StockState state = stock.get(slot.productId);
+            if (slot.type == SlotType.RELEASE) {
+                if (state != null) {
+                    state.remaining += slot.quantity;
+                }
+                return;
+            }
+            
+            if (state == null || state.remaining < slot.quantity) {
+                rejected.increment();
+                slot.decision.complete(null);
+                return;
+            }
+            
+            Allocation allocation = new Allocation(slot.orderNumber, slot.userId, slot.productId, slot.quantity,
+                    state.unitPrice, slot.paymentMethod, slot.shippingAddress, slot.notes);
+            // Completing races with a caller that timed out and cancelled; only take stock if we won
+            if (slot.decision.complete(allocation)) {
+                state.remaining -= slot.quantity;
+                acceptedAllocations.add(allocation);
+                accepted.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.dto.request.CreateOrderRequest;
+import com.SWD_G4.OrderFlow.dto.response.OrderResponse;
+import com.SWD_G4.OrderFlow.entity.User;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional group-commit checkout (app.checkout.group-commit.enabled). Checkouts are queued and a few
+ * worker threads run them in micro-batches: every order of a batch is created in one shared transaction,
+ * so a batch pays for one commit, and stock is taken once per product for the whole batch at the end of it.
+ * If anything in a batch fails, the batch is rolled back and its checkouts are retried one transaction
+ * each, so a single bad request (empty cart, no stock, version conflict) only fails its own caller.
+ */
+@Service
+@Slf4j
+public class GroupCommitCheckoutPipeline {
+    
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributionSummary batchSizes;
+    private final BlockingQueue<CheckoutTask> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    
+    @Value("${app.checkout.group-commit.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${app.checkout.group-commit.workers:2}")
+    private int workerCount;
+    
+    @Value("${app.checkout.group-commit.max-batch-size:32}")
+    private int maxBatchSize;
+    
+    @Value("${app.checkout.group-commit.linger-ms:5}")
+    private long lingerMs;
+    
+    @Value("${app.checkout.group-commit.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+    
+    public GroupCommitCheckoutPipeline(OrderService orderService,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${app.checkout.group-commit.queue-capacity:1000}") int queueCapacity) {
+        this.orderService = orderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSizes = DistributionSummary.builder("orderflow.checkout.group_commit.batch_size")
+                .description("Checkouts committed per group-commit transaction")
+                .register(meterRegistry);
+        meterRegistry.gauge("orderflow.checkout.group_commit.queued", queue, BlockingQueue::size);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::runWorker, "checkout-group-commit-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Group-commit checkout enabled: {} worker(s), batches of up to {}", workerCount, maxBatchSize);
+    }
+    
+    @PreDestroy
+    void stop() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+    }
+    
+    /**
+     * Queue a checkout and wait for its own result. Sheds load immediately when the queue is full.
+     * The wait timeout only applies while the checkout is still queued: once a worker has claimed it,
+     * the caller waits for the outcome, so an overloaded error always means no order was created.
+     */
+    public OrderResponse checkout(User user, CreateOrderRequest request) {
+        CheckoutTask task = new CheckoutTask(user, request, new CompletableFuture<>(), new AtomicBoolean());
+        if (!queue.offer(task)) {
+            throw new AppException(ErrorCode.CHECKOUT_OVERLOADED);
+        }
+        
+        try {
+            return task.result().get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (task.claim()) {
+                // Still queued, and now no worker will run it
+                throw new AppException(ErrorCode.CHECKOUT_OVERLOADED);
+            }
+            return awaitClaimed(task);
+        } catch (InterruptedException e) {
+            if (task.claim()) {
+                Thread.currentThread().interrupt();
+                throw new AppException(ErrorCode.CHECKOUT_OVERLOADED);
+            }
+            try {
+                return awaitClaimed(task);
+            } finally {
+                Thread.currentThread().interrupt();
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+    
+    // A worker is committing the task; returning early would let the caller release its cart lock and
+    // Idempotency-Key while the order may still be created
+    private OrderResponse awaitClaimed(CheckoutTask task) {
+        try {
+            return task.result().join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+    
+    private RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(cause);
+    }
+    
+    private void runWorker() {
+        List<CheckoutTask> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                CheckoutTask first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                
+                // Linger briefly so concurrent checkouts can join the same commit
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatchSize) {
+                    CheckoutTask next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                
+                // Tasks whose caller already gave up were claimed by that caller
+                batch.removeIf(task -> !task.claim());
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Group-commit worker failed on a batch of {} checkout(s)", batch.size(), e);
+                batch.forEach(task -> task.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void commit(List<CheckoutTask> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSizes.record(batch.size());
+        if (batch.size() == 1) {
+            commitSingle(batch.get(0));
+            return;
+        }
+        
+        List<OrderResponse> results = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> orderService.withBatchedStock(() -> {
+                for (CheckoutTask task : batch) {
+                    results.add(orderService.createOrder(task.user(), task.request()));
+                }
+                return results;
+            }));
+        } catch (RuntimeException e) {
+            log.info("Group commit of {} checkouts rolled back ({}), retrying them individually",
+                    batch.size(), e.getMessage());
+            batch.forEach(this::commitSingle);
+            return;
+        }
+        
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(results.get(i));
+        }
+    }
+    
+    private void commitSingle(CheckoutTask task) {
+        try {
+            task.result().complete(orderService.createOrder(task.user(), task.request()));
+        } catch (RuntimeException e) {
+            task.result().completeExceptionally(e);
+        }
+    }
+    
+    private record CheckoutTask(User user, CreateOrderRequest request, CompletableFuture<OrderResponse> result,
+                                AtomicBoolean claimed) {
+        
+        // Worker and timed-out caller race for the task; only the winner decides its fate
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
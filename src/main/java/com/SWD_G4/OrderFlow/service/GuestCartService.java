@@ -0,0 +1,143 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.dto.request.AddToCartRequest;
+import com.SWD_G4.OrderFlow.dto.request.CartOperation;
+import com.SWD_G4.OrderFlow.dto.request.UpdateCartItemRequest;
+import com.SWD_G4.OrderFlow.dto.response.CartResponse;
+import com.SWD_G4.OrderFlow.entity.Money;
+import com.SWD_G4.OrderFlow.entity.Product;
+import com.SWD_G4.OrderFlow.entity.User;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import com.SWD_G4.OrderFlow.mapper.CartMapper;
+import com.SWD_G4.OrderFlow.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Carts of anonymous visitors, identified by the signed GUEST_CART cookie and held in
+ * GuestCartStore only. On login the guest cart is merged into the user's cart in one batch.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GuestCartService {
+
+    private final GuestCartStore guestCartStore;
+    private final CartService cartService;
+    private final HotCartService hotCartService;
+    private final CartMutationLock cartMutationLock;
+    private final ProductService productService;
+    private final UserRepository userRepository;
+    private final CartMapper cartMapper;
+
+    /**
+     * @param guestId verified guest id, or null when the visitor has no cart yet
+     */
+    public CartResponse getCart(String guestId) {
+        List<HotCartStore.Line> lines = guestId != null ? guestCartStore.lines(guestId) : List.of();
+        Map<Long, Product> products = productService.findAllById(
+                lines.stream().map(HotCartStore.Line::productId).toList());
+        return cartMapper.toCartResponse(null, new HotCartStore.Snapshot(lines, null), products);
+    }
+
+    public CartResponse addToCart(String guestId, AddToCartRequest request) {
+        Product product = productService.findById(request.getProductId())
+                .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_FOUND));
+
+        if (!product.getIsActive()) {
+            throw new AppException(ErrorCode.PRODUCT_NOT_AVAILABLE);
+        }
+
+        long quantity = guestCartStore.addQuantity(guestId, product.getId(), request.getQuantity(),
+                Money.of(product.getPrice()), product.getStockQuantity());
+        if (quantity == HotCartStore.REJECTED) {
+            throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
+        }
+
+        return getCart(guestId);
+    }
+
+    public CartResponse updateCartItem(String guestId, Long productId, UpdateCartItemRequest request) {
+        Product product = productService.findById(productId)
+                .orElseThrow(() -> new AppException(ErrorCode.CART_ITEM_NOT_FOUND));
+
+        if (product.getStockQuantity() < request.getQuantity()) {
+            throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
+        }
+
+        if (guestId == null || !guestCartStore.setQuantity(guestId, productId, request.getQuantity())) {
+            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
+        }
+
+        return getCart(guestId);
+    }
+
+    public CartResponse removeFromCart(String guestId, Long productId) {
+        if (guestId == null || !guestCartStore.remove(guestId, productId)) {
+            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
+        }
+
+        return getCart(guestId);
+    }
+
+    public void clearCart(String guestId) {
+        if (guestId != null) {
+            guestCartStore.delete(guestId);
+        }
+    }
+
+    /**
+     * Add the guest cart's lines to the user's cart as one batch, then drop the guest cart.
+     * If the combined quantities fail validation, lines are merged one by one and the ones that
+     * still fail (sold out, deactivated) are skipped.
+     */
+    public void mergeIntoUserCart(String username, String guestId) {
+        List<HotCartStore.Line> lines = guestCartStore.lines(guestId);
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+        List<CartOperation> operations = lines.stream()
+                .map(line -> CartOperation.builder()
+                        .type(CartOperation.Type.ADD)
+                        .productId(line.productId())
+                        .quantity(line.quantity())
+                        .build())
+                .toList();
+
+        cartMutationLock.runWithUserLock(user.getId(), () -> {
+            try {
+                applyBatch(user, operations);
+            } catch (AppException e) {
+                log.info("Guest cart merge for user {} failed as a batch ({}), merging line by line",
+                        username, e.getErrorCode());
+                for (CartOperation operation : operations) {
+                    try {
+                        applyBatch(user, List.of(operation));
+                    } catch (AppException lineFailure) {
+                        log.info("Skipped product {} from guest cart of user {}: {}",
+                                operation.getProductId(), username, lineFailure.getErrorCode());
+                    }
+                }
+            }
+        });
+
+        guestCartStore.delete(guestId);
+        log.info("Merged {} guest cart line(s) into cart of user {}", lines.size(), username);
+    }
+
+    private void applyBatch(User user, List<CartOperation> operations) {
+        if (hotCartService.isEnabled()) {
+            hotCartService.applyBatch(user, operations);
+        } else {
+            cartService.applyBatch(user, operations);
+        }
+    }
+}
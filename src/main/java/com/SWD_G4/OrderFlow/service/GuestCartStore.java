@@ -0,0 +1,219 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.entity.Money;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Anonymous carts, never written to MySQL. Kept in Redis as one hash per guest with the same
+ * "q:{id}" / "p:{id}" layout as HotCartStore and a TTL refreshed on every write; without Redis a
+ * local map with the same TTL stands in (guests are then tied to the node that served them), capped at
+ * app.cart.guest.local-max-carts so cookie-less adds cannot grow it without bound.
+ */
+@Service
+@Slf4j
+public class GuestCartStore {
+
+    private static final String KEY_PREFIX = "cart::guest::";
+
+    // KEYS[1] guest cart; ARGV[1] TTL (ms), ARGV[2] product, ARGV[3] delta, ARGV[4] unit price, ARGV[5] max quantity
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            "local field = 'q:' .. ARGV[2] " +
+            "local quantity = tonumber(redis.call('HGET', KEYS[1], field) or '0') + tonumber(ARGV[3]) " +
+            "if quantity > tonumber(ARGV[5]) then return -1 end " +
+            "redis.call('HSET', KEYS[1], field, quantity) " +
+            "redis.call('HSETNX', KEYS[1], 'p:' .. ARGV[2], ARGV[4]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+            "return quantity",
+            Long.class);
+
+    // ARGV[1] TTL (ms), ARGV[2] product, ARGV[3] quantity. Returns 0 when the product is not in the cart
+    private static final DefaultRedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[2]) == 0 then return 0 end " +
+            "redis.call('HSET', KEYS[1], 'q:' .. ARGV[2], ARGV[3]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+            "return 1",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ConcurrentHashMap<String, LocalCart> localCarts = new ConcurrentHashMap<>();
+
+    @Value("${app.cart.guest.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${app.cart.guest.local-max-carts:10000}")
+    private int localMaxCarts;
+
+    public GuestCartStore(@Autowired(required = false) StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * @return the new quantity, or HotCartStore.REJECTED when it would exceed maxQuantity
+     */
+    public long addQuantity(String guestId, Long productId, int delta, Money unitPrice, int maxQuantity) {
+        if (redisTemplate != null) {
+            Long quantity = redisTemplate.execute(ADD_SCRIPT, List.of(KEY_PREFIX + guestId), ttlArg(),
+                    String.valueOf(productId), String.valueOf(delta), String.valueOf(unitPrice.minorUnits()),
+                    String.valueOf(maxQuantity));
+            return quantity != null ? quantity : HotCartStore.REJECTED;
+        }
+
+        LocalCart cart = localCarts.get(guestId);
+        if (cart == null) {
+            ensureLocalCapacity();
+            cart = localCarts.computeIfAbsent(guestId, id -> new LocalCart(ttlMillis()));
+        }
+        synchronized (cart) {
+            if (cart.isExpired()) {
+                cart.lines.clear();
+            }
+            HotCartStore.Line line = cart.lines.get(productId);
+            int quantity = (line != null ? line.quantity() : 0) + delta;
+            if (quantity > maxQuantity) {
+                return HotCartStore.REJECTED;
+            }
+            cart.lines.put(productId, new HotCartStore.Line(productId, quantity,
+                    line != null ? line.unitPrice() : unitPrice));
+            cart.touch(ttlMillis());
+            return quantity;
+        }
+    }
+
+    /**
+     * @return false when the product is not in the cart
+     */
+    public boolean setQuantity(String guestId, Long productId, int quantity) {
+        if (redisTemplate != null) {
+            Long updated = redisTemplate.execute(SET_SCRIPT, List.of(KEY_PREFIX + guestId), ttlArg(),
+                    String.valueOf(productId), String.valueOf(quantity));
+            return updated != null && updated == 1;
+        }
+
+        LocalCart cart = localCarts.get(guestId);
+        if (cart == null) {
+            return false;
+        }
+        synchronized (cart) {
+            HotCartStore.Line line = cart.lines.get(productId);
+            if (line == null) {
+                return false;
+            }
+            cart.lines.put(productId, new HotCartStore.Line(productId, quantity, line.unitPrice()));
+            cart.touch(ttlMillis());
+            return true;
+        }
+    }
+
+    /**
+     * @return false when the product is not in the cart
+     */
+    public boolean remove(String guestId, Long productId) {
+        if (redisTemplate != null) {
+            Long removed = redisTemplate.opsForHash().delete(KEY_PREFIX + guestId, "q:" + productId, "p:" + productId);
+            if (removed == null || removed == 0) {
+                return false;
+            }
+            redisTemplate.expire(KEY_PREFIX + guestId, ttl());
+            return true;
+        }
+
+        LocalCart cart = localCarts.get(guestId);
+        if (cart == null) {
+            return false;
+        }
+        synchronized (cart) {
+            if (cart.lines.remove(productId) == null) {
+                return false;
+            }
+            cart.touch(ttlMillis());
+            return true;
+        }
+    }
+
+    public List<HotCartStore.Line> lines(String guestId) {
+        if (redisTemplate != null) {
+            return HotCartStore.parseLines(redisTemplate.opsForHash().entries(KEY_PREFIX + guestId));
+        }
+
+        LocalCart cart = localCarts.get(guestId);
+        if (cart == null || cart.isExpired()) {
+            return List.of();
+        }
+        synchronized (cart) {
+            return new ArrayList<>(cart.lines.values());
+        }
+    }
+
+    public void delete(String guestId) {
+        if (redisTemplate != null) {
+            redisTemplate.delete(KEY_PREFIX + guestId);
+        } else {
+            localCarts.remove(guestId);
+        }
+    }
+
+    // Soft cap: concurrent first adds may overshoot it by a few carts
+    private void ensureLocalCapacity() {
+        if (localCarts.size() < localMaxCarts) {
+            return;
+        }
+        evictExpired();
+        if (localCarts.size() >= localMaxCarts) {
+            log.warn("Local guest cart store is full ({} carts), refusing a new guest cart", localCarts.size());
+            throw new AppException(ErrorCode.GUEST_CART_UNAVAILABLE);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.guest.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        localCarts.values().removeIf(LocalCart::isExpired);
+    }
+
+    /**
+     * Idle lifetime of a guest cart; every write extends it.
+     */
+    public Duration ttl() {
+        return Duration.ofHours(ttlHours);
+    }
+
+    private String ttlArg() {
+        return String.valueOf(ttlMillis());
+    }
+
+    private long ttlMillis() {
+        return TimeUnit.HOURS.toMillis(ttlHours);
+    }
+
+    private static final class LocalCart {
+        private final Map<Long, HotCartStore.Line> lines = new LinkedHashMap<>();
+        private volatile long expiresAt;
+
+        private LocalCart(long ttlMillis) {
+            touch(ttlMillis);
+        }
+
+        private void touch(long ttlMillis) {
+            expiresAt = System.currentTimeMillis() + ttlMillis;
+        }
+
+        private boolean isExpired() {
+            return expiresAt < System.currentTimeMillis();
+        }
+    }
+}
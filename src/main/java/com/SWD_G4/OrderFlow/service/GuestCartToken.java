@@ -0,0 +1,79 @@
+package com.SWD_G4.OrderFlow.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Signed guest cart ids for the GUEST_CART cookie: "{id}.{HMAC-SHA256(id)}". The signature keeps
+ * clients from guessing or forging another guest's cart id. The key is app.cart.guest.secret, or,
+ * when that is not set, one derived from the JWT signer key so the two never share key material.
+ */
+@Component
+public class GuestCartToken {
+
+    public static final String COOKIE_NAME = "GUEST_CART";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String KEY_LABEL = "guest-cart";
+
+    private final SecretKeySpec key;
+
+    public GuestCartToken(@Value("${app.cart.guest.secret:}") String secret,
+                          @Value("${jwt.signerKey}") String signerKey) {
+        byte[] keyBytes = StringUtils.hasText(secret)
+                ? secret.getBytes(StandardCharsets.UTF_8)
+                : hmac(new SecretKeySpec(signerKey.getBytes(StandardCharsets.UTF_8), ALGORITHM), KEY_LABEL);
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    /**
+     * @return a new guest id and its cookie value
+     */
+    public Issued issue() {
+        String guestId = UUID.randomUUID().toString().replace("-", "");
+        return new Issued(guestId, guestId + "." + sign(guestId));
+    }
+
+    /**
+     * @return the guest id, or null when the cookie is missing, malformed or not signed by us
+     */
+    public String verify(String cookieValue) {
+        if (!StringUtils.hasText(cookieValue)) {
+            return null;
+        }
+        int separator = cookieValue.indexOf('.');
+        if (separator <= 0) {
+            return null;
+        }
+        String guestId = cookieValue.substring(0, separator);
+        byte[] expected = sign(guestId).getBytes(StandardCharsets.US_ASCII);
+        byte[] actual = cookieValue.substring(separator + 1).getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(expected, actual) ? guestId : null;
+    }
+
+    private String sign(String guestId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(key, guestId));
+    }
+
+    private static byte[] hmac(SecretKeySpec key, String value) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    public record Issued(String guestId, String cookieValue) {
+    }
+}
@@ -0,0 +1,213 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.dto.request.AddToCartRequest;
+import com.SWD_G4.OrderFlow.dto.request.CartOperation;
+import com.SWD_G4.OrderFlow.dto.request.UpdateCartItemRequest;
+import com.SWD_G4.OrderFlow.dto.response.CartResponse;
+import com.SWD_G4.OrderFlow.entity.Cart;
+import com.SWD_G4.OrderFlow.entity.Money;
+import com.SWD_G4.OrderFlow.entity.Product;
+import com.SWD_G4.OrderFlow.entity.User;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import com.SWD_G4.OrderFlow.mapper.CartMapper;
+import com.SWD_G4.OrderFlow.repository.CartRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cart operations against the Redis copy kept by HotCartStore. Nothing here touches MySQL except
+ * the one-off load of a cart that is not in Redis yet; carts are written back at checkout
+ * (CartService.loadCheckoutCart) or by flushIdleCarts once they have gone idle.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HotCartService {
+
+    private final HotCartStore hotCartStore;
+    private final CartMutationLock cartMutationLock;
+    private final CartService cartService;
+    private final CartRepository cartRepository;
+    private final ProductService productService;
+    private final CartMapper cartMapper;
+
+    @Value("${app.cart.redis.idle-minutes:30}")
+    private long idleMinutes;
+
+    @Value("${app.cart.redis.flush-batch-size:200}")
+    private int flushBatchSize;
+
+    public boolean isEnabled() {
+        return hotCartStore.isEnabled();
+    }
+
+    public CartResponse getCart(User user) {
+        HotCartStore.Snapshot snapshot = loadSnapshot(user);
+        Map<Long, Product> products = productService.findAllById(
+                snapshot.lines().stream().map(HotCartStore.Line::productId).toList());
+        return cartMapper.toCartResponse(user.getId(), snapshot, products);
+    }
+
+    public CartResponse addToCart(User user, AddToCartRequest request) {
+        Product product = productService.findById(request.getProductId())
+                .orElseThrow(() -> new AppException(ErrorCode.PRODUCT_NOT_FOUND));
+
+        if (!product.getIsActive()) {
+            throw new AppException(ErrorCode.PRODUCT_NOT_AVAILABLE);
+        }
+
+        // Quantity already in the cart plus the new one must be in stock
+        long quantity = mutate(user, () -> hotCartStore.addQuantity(user.getId(), product.getId(),
+                request.getQuantity(), Money.of(product.getPrice()), product.getStockQuantity()));
+        if (quantity == HotCartStore.REJECTED) {
+            throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
+        }
+
+        return getCart(user);
+    }
+
+    /**
+     * @param productId carts held in Redis identify their items by product id
+     */
+    public CartResponse updateCartItem(User user, Long productId, UpdateCartItemRequest request) {
+        Product product = productService.findById(productId)
+                .orElseThrow(() -> new AppException(ErrorCode.CART_ITEM_NOT_FOUND));
+
+        if (product.getStockQuantity() < request.getQuantity()) {
+            throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
+        }
+
+        if (mutate(user, () -> hotCartStore.setQuantity(user.getId(), productId, request.getQuantity())) == 0) {
+            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
+        }
+
+        return getCart(user);
+    }
+
+    public CartResponse removeFromCart(User user, Long productId) {
+        if (mutate(user, () -> hotCartStore.remove(user.getId(), productId)) == 0) {
+            throw new AppException(ErrorCode.CART_ITEM_NOT_FOUND);
+        }
+
+        return getCart(user);
+    }
+
+    /**
+     * Batch variant of the single-item operations; validated with the same rules as CartService.applyBatch
+     * and written to Redis in one call.
+     */
+    public CartResponse applyBatch(User user, List<CartOperation> operations) {
+        Map<Long, Integer> current = loadSnapshot(user).lines().stream()
+                .collect(Collectors.toMap(HotCartStore.Line::productId, HotCartStore.Line::quantity));
+
+        Map<Long, Integer> planned = CartService.planBatch(current, operations);
+        Map<Long, Product> products = productService.findAllById(CartService.productsToCheck(planned));
+        CartService.validateBatch(planned, current, products);
+
+        List<HotCartStore.Line> lines = new ArrayList<>(planned.size());
+        planned.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            lines.add(new HotCartStore.Line(productId, quantity,
+                    product != null ? Money.of(product.getPrice()) : Money.ZERO));
+        });
+        mutate(user, () -> hotCartStore.applyQuantities(user.getId(), lines));
+
+        return getCart(user);
+    }
+
+    public void clearCart(User user) {
+        hotCartStore.clear(user.getId());
+    }
+
+    /**
+     * Write carts untouched for app.cart.redis.idle-minutes to the database and drop them from Redis.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.redis.flush-interval-ms:60000}",
+            initialDelayString = "${app.cart.redis.flush-initial-delay-ms:60000}")
+    public void flushIdleCarts() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        long cutoff = System.currentTimeMillis() - Duration.ofMinutes(idleMinutes).toMillis();
+        int flushed = 0;
+        for (Long userId : hotCartStore.findIdle(cutoff, flushBatchSize)) {
+            try {
+                // Holding the user's lock keeps a concurrent cart edit from racing the write-back
+                boolean evicted = cartMutationLock.withUserLock(userId, () -> {
+                    HotCartStore.Snapshot snapshot = hotCartStore.snapshot(userId);
+                    if (snapshot == null) {
+                        // Expired by TTL without a flush (e.g. all nodes were down); the database copy stands
+                        hotCartStore.forget(userId);
+                        return false;
+                    }
+                    cartService.persistHotCart(userId, snapshot);
+                    return hotCartStore.evictIfUnchanged(userId, snapshot);
+                });
+                if (evicted) {
+                    flushed++;
+                }
+            } catch (AppException e) {
+                log.debug("Skipping idle cart of user {}: {}", userId, e.getErrorCode());
+            } catch (RuntimeException e) {
+                log.error("Failed to persist idle cart of user {}", userId, e);
+            }
+        }
+
+        if (flushed > 0) {
+            log.info("Persisted and evicted {} idle cart(s)", flushed);
+        }
+    }
+
+    /**
+     * Run a store mutation, loading the cart from the database first if Redis does not hold it.
+     */
+    private long mutate(User user, LongSupplier mutation) {
+        long result = mutation.getAsLong();
+        if (result == HotCartStore.NOT_LOADED) {
+            hydrate(user);
+            result = mutation.getAsLong();
+        }
+        return result;
+    }
+
+    private HotCartStore.Snapshot loadSnapshot(User user) {
+        HotCartStore.Snapshot snapshot = hotCartStore.snapshot(user.getId());
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        List<HotCartStore.Line> lines = storedLines(user);
+        if (lines.isEmpty()) {
+            // Reading an empty cart does not load it into Redis (or the idle index); the first write does
+            return new HotCartStore.Snapshot(List.of(), null);
+        }
+        hotCartStore.hydrate(user.getId(), lines);
+        snapshot = hotCartStore.snapshot(user.getId());
+        return snapshot != null ? snapshot : new HotCartStore.Snapshot(lines, null);
+    }
+
+    private void hydrate(User user) {
+        hotCartStore.hydrate(user.getId(), storedLines(user));
+    }
+
+    private List<HotCartStore.Line> storedLines(User user) {
+        return cartRepository.findByUserWithItems(user)
+                .map(Cart::getCartItems)
+                .map(items -> items.stream()
+                        .map(item -> new HotCartStore.Line(item.getProduct().getId(), item.getQuantity(), item.getUnitPrice()))
+                        .toList())
+                .orElse(List.of());
+    }
+}
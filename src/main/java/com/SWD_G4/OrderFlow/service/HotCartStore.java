@@ -0,0 +1,380 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.entity.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Active carts kept in Redis when app.cart.store=redis: one hash per user with the quantity and
+ * unit-price snapshot (minor units) of every product ("q:{id}", "p:{id}") plus the last-touch time ("_ts").
+ * Each mutation is one Lua call that also refreshes the TTL and the idle index. A cart that is not
+ * in Redis yet makes the call return NOT_LOADED so the caller can hydrate it from MySQL first.
+ * A set per product ("cart::hot::product::{id}") lists the users whose cart holds it, so a price
+ * change only visits those carts; members whose cart expired are dropped when next visited.
+ */
+@Service
+@Slf4j
+public class HotCartStore {
+
+    public static final long NOT_LOADED = -2;
+    public static final long REJECTED = -1;
+
+    private static final String KEY_PREFIX = "cart::hot::";
+    private static final String ACTIVE_KEY = "cart::hot::active";
+    private static final String PRODUCT_KEY_PREFIX = "cart::hot::product::";
+    private static final String TOUCHED_FIELD = "_ts";
+    private static final String QUANTITY_PREFIX = "q:";
+    private static final String PRICE_PREFIX = "p:";
+
+    // KEYS[1] cart hash, KEYS[2] idle index; ARGV[1] now (ms), ARGV[2] TTL (ms), ARGV[3] user id
+    private static final String LOADED_CHECK =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -2 end ";
+    private static final String TOUCH =
+            "redis.call('HSET', KEYS[1], '_ts', ARGV[1]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "redis.call('ZADD', KEYS[2], ARGV[1], ARGV[3]) ";
+
+    // Product sets are addressed from the script: the product ids are only known inside batch calls
+    private static String indexProduct(String productArg, String userArg) {
+        return "redis.call('SADD', '" + PRODUCT_KEY_PREFIX + "' .. " + productArg + ", " + userArg + ") ";
+    }
+
+    private static String unindexProduct(String productArg, String userArg) {
+        return "redis.call('SREM', '" + PRODUCT_KEY_PREFIX + "' .. " + productArg + ", " + userArg + ") ";
+    }
+
+    // Take the user out of the set of every product still in the cart hash
+    private static String unindexAll(String userArg) {
+        return "for _, f in ipairs(redis.call('HKEYS', KEYS[1])) do " +
+                "if string.sub(f, 1, 2) == 'q:' then " + unindexProduct("string.sub(f, 3)", userArg) + "end " +
+                "end ";
+    }
+
+    // ARGV[4] product, ARGV[5] delta, ARGV[6] unit price, ARGV[7] max quantity. Returns the new quantity
+    // or -1 when it would exceed the maximum; the price snapshot is kept from the first add.
+    private static final DefaultRedisScript<Long> ADD_SCRIPT = new DefaultRedisScript<>(
+            LOADED_CHECK +
+            "local field = 'q:' .. ARGV[4] " +
+            "local quantity = tonumber(redis.call('HGET', KEYS[1], field) or '0') + tonumber(ARGV[5]) " +
+            "if quantity > tonumber(ARGV[7]) then return -1 end " +
+            "redis.call('HSET', KEYS[1], field, quantity) " +
+            "redis.call('HSETNX', KEYS[1], 'p:' .. ARGV[4], ARGV[6]) " +
+            indexProduct("ARGV[4]", "ARGV[3]") +
+            TOUCH +
+            "return quantity",
+            Long.class);
+
+    // ARGV[4] product, ARGV[5] quantity. Returns 1, or 0 when the product is not in the cart
+    private static final DefaultRedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>(
+            LOADED_CHECK +
+            "if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[4]) == 0 then return 0 end " +
+            "redis.call('HSET', KEYS[1], 'q:' .. ARGV[4], ARGV[5]) " +
+            TOUCH +
+            "return 1",
+            Long.class);
+
+    // ARGV[4] product. Returns 1, or 0 when the product is not in the cart
+    private static final DefaultRedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            LOADED_CHECK +
+            "if redis.call('HDEL', KEYS[1], 'q:' .. ARGV[4], 'p:' .. ARGV[4]) == 0 then return 0 end " +
+            unindexProduct("ARGV[4]", "ARGV[3]") +
+            TOUCH +
+            "return 1",
+            Long.class);
+
+    // ARGV[4..] product, quantity, unit price triples; quantity 0 removes the product
+    private static final DefaultRedisScript<Long> BATCH_SCRIPT = new DefaultRedisScript<>(
+            LOADED_CHECK +
+            "for i = 4, #ARGV, 3 do " +
+            "if ARGV[i + 1] == '0' then " +
+            "redis.call('HDEL', KEYS[1], 'q:' .. ARGV[i], 'p:' .. ARGV[i]) " +
+            unindexProduct("ARGV[i]", "ARGV[3]") +
+            "else " +
+            "redis.call('HSET', KEYS[1], 'q:' .. ARGV[i], ARGV[i + 1]) " +
+            "redis.call('HSETNX', KEYS[1], 'p:' .. ARGV[i], ARGV[i + 2]) " +
+            indexProduct("ARGV[i]", "ARGV[3]") +
+            "end " +
+            "end " +
+            TOUCH +
+            "return 1",
+            Long.class);
+
+    private static final DefaultRedisScript<Long> CLEAR_SCRIPT = new DefaultRedisScript<>(
+            unindexAll("ARGV[3]") +
+            "redis.call('DEL', KEYS[1]) " +
+            TOUCH +
+            "return 1",
+            Long.class);
+
+    // ARGV[4..] product, quantity, unit price triples. Loads only when the cart is still absent.
+    private static final DefaultRedisScript<Long> HYDRATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "for i = 4, #ARGV, 3 do " +
+            "redis.call('HSET', KEYS[1], 'q:' .. ARGV[i], ARGV[i + 1], 'p:' .. ARGV[i], ARGV[i + 2]) " +
+            indexProduct("ARGV[i]", "ARGV[3]") +
+            "end " +
+            TOUCH +
+            "return 1",
+            Long.class);
+
+    // After checkout: ARGV[1] user id, ARGV[2..] product, quantity pairs that were ordered. Lines changed
+    // since are kept; the hash is dropped once only the touch field is left.
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 2 do " +
+            "if redis.call('HGET', KEYS[1], 'q:' .. ARGV[i]) == ARGV[i + 1] then " +
+            "redis.call('HDEL', KEYS[1], 'q:' .. ARGV[i], 'p:' .. ARGV[i]) " +
+            unindexProduct("ARGV[i]", "ARGV[1]") +
+            "end " +
+            "end " +
+            "if redis.call('HLEN', KEYS[1]) <= 1 then " +
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('ZREM', KEYS[2], ARGV[1]) " +
+            "end " +
+            "return 1",
+            Long.class);
+
+    // After an idle flush: ARGV[1] user id, ARGV[2] touch time that was persisted. Evicts only if untouched since.
+    private static final DefaultRedisScript<Long> EVICT_SCRIPT = new DefaultRedisScript<>(
+            "local touched = redis.call('HGET', KEYS[1], '_ts') " +
+            "if touched and touched ~= ARGV[2] then return 0 end " +
+            unindexAll("ARGV[1]") +
+            "redis.call('DEL', KEYS[1]) " +
+            "redis.call('ZREM', KEYS[2], ARGV[1]) " +
+            "return 1",
+            Long.class);
+
+    // After a price change: KEYS[2] product set; ARGV[1] product, ARGV[2] unit price, ARGV[3] now (ms),
+    // ARGV[4] user id. Updates _ts so an idle flush that read the old price does not evict, but leaves the
+    // idle index alone: it is not cart activity. A user whose cart no longer holds the product leaves the set.
+    private static final DefaultRedisScript<Long> REPRICE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], 'q:' .. ARGV[1]) == 0 then " +
+            "redis.call('SREM', KEYS[2], ARGV[4]) " +
+            "return 0 end " +
+            "redis.call('HSET', KEYS[1], 'p:' .. ARGV[1], ARGV[2], '_ts', ARGV[3]) " +
+            "return 1",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+
+    @Value("${app.cart.redis.ttl-hours:72}")
+    private long ttlHours;
+
+    public HotCartStore(@Autowired(required = false) StringRedisTemplate redisTemplate,
+                        @Value("${app.cart.store:database}") String store) {
+        this.redisTemplate = redisTemplate;
+        boolean redisRequested = "redis".equalsIgnoreCase(store);
+        if (redisRequested && redisTemplate == null) {
+            log.warn("app.cart.store=redis but Redis is not configured; carts stay in the database");
+        }
+        this.enabled = redisRequested && redisTemplate != null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Add delta to the product's quantity unless the result would exceed maxQuantity.
+     * @return the new quantity, REJECTED, or NOT_LOADED
+     */
+    public long addQuantity(Long userId, Long productId, int delta, Money unitPrice, int maxQuantity) {
+        return run(ADD_SCRIPT, userId, String.valueOf(productId), String.valueOf(delta),
+                String.valueOf(unitPrice.minorUnits()), String.valueOf(maxQuantity));
+    }
+
+    /**
+     * @return 1 when updated, 0 when the product is not in the cart, or NOT_LOADED
+     */
+    public long setQuantity(Long userId, Long productId, int quantity) {
+        return run(SET_SCRIPT, userId, String.valueOf(productId), String.valueOf(quantity));
+    }
+
+    /**
+     * @return 1 when removed, 0 when the product is not in the cart, or NOT_LOADED
+     */
+    public long remove(Long userId, Long productId) {
+        return run(REMOVE_SCRIPT, userId, String.valueOf(productId));
+    }
+
+    /**
+     * Write final quantities in one call; a quantity of 0 removes the product. Existing lines keep
+     * their price snapshot.
+     * @return 1, or NOT_LOADED
+     */
+    public long applyQuantities(Long userId, Collection<Line> lines) {
+        List<String> args = new ArrayList<>(lines.size() * 3);
+        for (Line line : lines) {
+            args.add(String.valueOf(line.productId()));
+            args.add(String.valueOf(line.quantity()));
+            args.add(String.valueOf(line.unitPrice().minorUnits()));
+        }
+        return run(BATCH_SCRIPT, userId, args.toArray(String[]::new));
+    }
+
+    public void clear(Long userId) {
+        run(CLEAR_SCRIPT, userId);
+    }
+
+    /**
+     * Load a cart read from the database, unless another request loaded it first.
+     */
+    public void hydrate(Long userId, Collection<Line> lines) {
+        List<String> args = new ArrayList<>(lines.size() * 3);
+        for (Line line : lines) {
+            args.add(String.valueOf(line.productId()));
+            args.add(String.valueOf(line.quantity()));
+            args.add(String.valueOf(line.unitPrice().minorUnits()));
+        }
+        run(HYDRATE_SCRIPT, userId, args.toArray(String[]::new));
+    }
+
+    /**
+     * @return the cart as currently held in Redis, or null when it is not loaded
+     */
+    public Snapshot snapshot(Long userId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(cartKey(userId));
+        if (fields.isEmpty()) {
+            return null;
+        }
+        return new Snapshot(parseLines(fields), (String) fields.get(TOUCHED_FIELD));
+    }
+
+    /**
+     * Read the "q:{id}" / "p:{id}" fields of a cart hash; other fields are ignored.
+     */
+    static List<Line> parseLines(Map<Object, Object> fields) {
+        List<Line> lines = new ArrayList<>();
+        for (Map.Entry<Object, Object> field : fields.entrySet()) {
+            String name = (String) field.getKey();
+            if (!name.startsWith(QUANTITY_PREFIX)) {
+                continue;
+            }
+            String productId = name.substring(QUANTITY_PREFIX.length());
+            Object price = fields.get(PRICE_PREFIX + productId);
+            if (price == null) {
+                continue;
+            }
+            lines.add(new Line(Long.valueOf(productId), Integer.parseInt((String) field.getValue()),
+                    Money.ofMinor(Long.parseLong((String) price))));
+        }
+        return lines;
+    }
+
+    /**
+     * Drop the checked-out lines once the order committed.
+     */
+    public void release(Long userId, Snapshot checkedOut) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(userId));
+        for (Line line : checkedOut.lines()) {
+            args.add(String.valueOf(line.productId()));
+            args.add(String.valueOf(line.quantity()));
+        }
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(cartKey(userId), ACTIVE_KEY), args.toArray());
+    }
+
+    /**
+     * Remove a persisted cart from Redis unless it was modified after the snapshot was taken.
+     * @return true when evicted
+     */
+    public boolean evictIfUnchanged(Long userId, Snapshot persisted) {
+        Long evicted = redisTemplate.execute(EVICT_SCRIPT, List.of(cartKey(userId), ACTIVE_KEY),
+                String.valueOf(userId), persisted.touchedAt());
+        return evicted != null && evicted == 1;
+    }
+
+    /**
+     * @return users whose cart was last touched before the cutoff, oldest first
+     */
+    public List<Long> findIdle(long touchedBeforeMillis, int limit) {
+        Set<String> members = redisTemplate.opsForZSet().rangeByScore(ACTIVE_KEY, 0, touchedBeforeMillis, 0, limit);
+        if (members == null) {
+            return List.of();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * @return those of the given users whose cart is currently held in Redis
+     */
+    public Set<Long> heldAmong(List<Long> userIds) {
+        if (!isEnabled() || userIds.isEmpty()) {
+            return Set.of();
+        }
+        List<Double> scores = redisTemplate.opsForZSet().score(ACTIVE_KEY,
+                userIds.stream().map(String::valueOf).toArray());
+        Set<Long> held = new HashSet<>();
+        for (int i = 0; i < userIds.size(); i++) {
+            if (scores != null && scores.get(i) != null) {
+                held.add(userIds.get(i));
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Set the unit price of the product in every cart held in Redis that contains it, walking the
+     * product's set with SSCAN in pages of about pageSize.
+     * @return number of carts that held the product
+     */
+    public int reprice(Long productId, Money unitPrice, int pageSize) {
+        String productKey = PRODUCT_KEY_PREFIX + productId;
+        String price = String.valueOf(unitPrice.minorUnits());
+        int repriced = 0;
+        try (Cursor<String> members = redisTemplate.opsForSet().scan(productKey,
+                ScanOptions.scanOptions().count(pageSize).build())) {
+            while (members.hasNext()) {
+                String userId = members.next();
+                Long updated = redisTemplate.execute(REPRICE_SCRIPT, List.of(KEY_PREFIX + userId, productKey),
+                        String.valueOf(productId), price, String.valueOf(System.currentTimeMillis()), userId);
+                if (updated != null && updated == 1) {
+                    repriced++;
+                }
+            }
+        }
+        return repriced;
+    }
+
+    public void forget(Long userId) {
+        redisTemplate.opsForZSet().remove(ACTIVE_KEY, String.valueOf(userId));
+    }
+
+    private long run(DefaultRedisScript<Long> script, Long userId, String... extraArgs) {
+        String[] args = new String[3 + extraArgs.length];
+        args[0] = String.valueOf(System.currentTimeMillis());
+        args[1] = String.valueOf(Duration.ofHours(ttlHours).toMillis());
+        args[2] = String.valueOf(userId);
+        System.arraycopy(extraArgs, 0, args, 3, extraArgs.length);
+        Long result = redisTemplate.execute(script, List.of(cartKey(userId), ACTIVE_KEY), (Object[]) args);
+        return result != null ? result : 0;
+    }
+
+    private static String cartKey(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    public record Line(Long productId, int quantity, Money unitPrice) {
+    }
+
+    /**
+     * Cart lines plus the touch time they were read at, used to detect later modifications.
+     */
+    public record Snapshot(List<Line> lines, String touchedAt) {
+    }
+}
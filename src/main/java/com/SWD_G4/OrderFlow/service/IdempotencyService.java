@@ -0,0 +1,268 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.dto.response.IdempotencyRecord;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Executes a request at most once per Idempotency-Key.
+ * Duplicates arriving while the first request runs wait for its result (in-process via a shared
+ * future, across nodes by polling Redis); later retries get the stored response replayed.
+ * Redis (SETNX with TTL) is used when configured, otherwise a local TTL map is the dedupe store.
+ * While a request runs its Redis marker only has a short lease, renewed by this node, so a crashed
+ * node blocks its key for seconds rather than for the result TTL.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+    
+    private static final String KEY_PREFIX = "idempotency::";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long REMOTE_POLL_INTERVAL_MS = 50;
+    
+    // Marker owner read from the stored JSON; a completed record has no owner and is never touched
+    private static final String OWNER_MATCHES =
+            "local value = redis.call('GET', KEYS[1]) " +
+            "if not value then return 0 end " +
+            "local ok, record = pcall(cjson.decode, value) " +
+            "if not ok or type(record) ~= 'table' or record.owner ~= ARGV[1] then return 0 end ";
+    
+    // Extend the in-progress lease, but only while the marker is still the one this node wrote
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            OWNER_MATCHES + "return redis.call('PEXPIRE', KEYS[1], ARGV[2])",
+            Long.class);
+    
+    // Release the in-progress marker unless its lease lapsed and another node took the key
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            OWNER_MATCHES + "return redis.call('DEL', KEYS[1])",
+            Long.class);
+    
+    private static final RedisSerializer<Long> SCRIPT_RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService leaseRenewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // In-flight and (without Redis) completed requests on this node
+    private final ConcurrentHashMap<String, LocalEntry> localEntries = new ConcurrentHashMap<>();
+    
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+    
+    @Value("${app.idempotency.wait-timeout-ms:10000}")
+    private long waitTimeoutMs;
+    
+    @Value("${app.idempotency.lease-ms:15000}")
+    private long leaseMs;
+    
+    public IdempotencyService(@Autowired(required = false) RedisTemplate<String, Object> redisTemplate,
+                              @Autowired(required = false) @Qualifier("redisObjectMapper") ObjectMapper redisObjectMapper,
+                              ObjectMapper defaultObjectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = redisObjectMapper != null ? redisObjectMapper : defaultObjectMapper;
+    }
+    
+    /**
+     * Run action once for the given key within scope, or return the result of the run that already happened.
+     * @param scope caller-specific namespace (endpoint + user), so keys from different users never collide
+     * @param idempotencyKey client-supplied key; when blank the action simply runs
+     */
+    public <T> T execute(String scope, String idempotencyKey, Class<T> responseType, Supplier<T> action) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new AppException(ErrorCode.INVALID_IDEMPOTENCY_KEY);
+        }
+        
+        String cacheKey = KEY_PREFIX + scope + "::" + idempotencyKey;
+        LocalEntry entry = new LocalEntry(new CompletableFuture<>(), System.currentTimeMillis() + ttlMillis());
+        LocalEntry existing = localEntries.putIfAbsent(cacheKey, entry);
+        if (existing != null) {
+            log.info("Duplicate request for idempotency key {}, waiting for the original result", cacheKey);
+            return responseType.cast(awaitLocal(existing.future()));
+        }
+        
+        try {
+            T result = executeOnce(cacheKey, responseType, action);
+            entry.future().complete(result);
+            if (redisTemplate != null) {
+                // Redis now holds the replayable result; waiters already reference the future
+                localEntries.remove(cacheKey, entry);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            localEntries.remove(cacheKey, entry);
+            entry.future().completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    private <T> T executeOnce(String cacheKey, Class<T> responseType, Supplier<T> action) {
+        if (redisTemplate == null) {
+            return action.get();
+        }
+        
+        String owner = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + waitTimeoutMs;
+        while (true) {
+            Boolean acquired;
+            try {
+                acquired = redisTemplate.opsForValue().setIfAbsent(cacheKey,
+                        IdempotencyRecord.builder().state(IdempotencyRecord.IN_PROGRESS).owner(owner).build(),
+                        Duration.ofMillis(leaseMs));
+            } catch (Exception e) {
+                log.warn("Idempotency store unavailable, executing without cross-node dedupe: {}", e.getMessage());
+                return action.get();
+            }
+            
+            if (Boolean.TRUE.equals(acquired)) {
+                return runAndStore(cacheKey, owner, action);
+            }
+            
+            IdempotencyRecord record = readRecord(cacheKey);
+            if (record != null && IdempotencyRecord.COMPLETED.equals(record.getState())) {
+                log.info("Replaying stored response for idempotency key {}", cacheKey);
+                return objectMapper.convertValue(record.getResponse(), responseType);
+            }
+            
+            // Another node is still processing (or just released the key after failing, or its lease expired)
+            if (System.currentTimeMillis() >= deadline) {
+                throw new AppException(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+            }
+            sleepQuietly(REMOTE_POLL_INTERVAL_MS);
+        }
+    }
+    
+    private <T> T runAndStore(String cacheKey, String owner, Supplier<T> action) {
+        long renewEvery = Math.max(1, leaseMs / 3);
+        ScheduledFuture<?> renewal = leaseRenewer.scheduleAtFixedRate(() -> renewLease(cacheKey, owner),
+                renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            renewal.cancel(false);
+            // Release the key so the client can retry a request that did not succeed
+            releaseQuietly(cacheKey, owner);
+            throw e;
+        }
+        renewal.cancel(false);
+        
+        try {
+            redisTemplate.opsForValue().set(cacheKey,
+                    IdempotencyRecord.builder().state(IdempotencyRecord.COMPLETED).response(result).build(),
+                    Duration.ofMillis(ttlMillis()));
+        } catch (Exception e) {
+            log.warn("Error storing idempotent response for key {}: {}", cacheKey, e.getMessage());
+        }
+        return result;
+    }
+    
+    private void renewLease(String cacheKey, String owner) {
+        try {
+            redisTemplate.execute(RENEW_SCRIPT, RedisSerializer.string(), SCRIPT_RESULT_SERIALIZER,
+                    List.of(cacheKey), owner, String.valueOf(leaseMs));
+        } catch (Exception e) {
+            log.warn("Error renewing idempotency lease {}: {}", cacheKey, e.getMessage());
+        }
+    }
+    
+    private IdempotencyRecord readRecord(String cacheKey) {
+        try {
+            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            if (cached == null) {
+                return null;
+            }
+            return cached instanceof IdempotencyRecord record
+                    ? record
+                    : objectMapper.convertValue(cached, IdempotencyRecord.class);
+        } catch (Exception e) {
+            log.warn("Error reading idempotency record {}: {}", cacheKey, e.getMessage());
+            return null;
+        }
+    }
+    
+    private Object awaitLocal(CompletableFuture<Object> future) {
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new AppException(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        } catch (ExecutionException e) {
+            // The original request failed; surface the same error to its duplicates
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AppException(ErrorCode.UNCATEGORIZED_EXCEPTION);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        localEntries.entrySet().removeIf(e -> e.getValue().future().isDone() && e.getValue().expiresAt() < now);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        leaseRenewer.shutdownNow();
+    }
+    
+    private long ttlMillis() {
+        return TimeUnit.HOURS.toMillis(ttlHours);
+    }
+    
+    private void releaseQuietly(String cacheKey, String owner) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, RedisSerializer.string(), SCRIPT_RESULT_SERIALIZER,
+                    List.of(cacheKey), owner);
+        } catch (Exception e) {
+            log.warn("Error releasing idempotency key {}: {}", cacheKey, e.getMessage());
+        }
+    }
+    
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException(ErrorCode.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        }
+    }
+    
+    private record LocalEntry(CompletableFuture<Object> future, long expiresAt) {
+    }
+}
@@ -2,16 +2,27 @@ package com.SWD_G4.OrderFlow.service;
 
 import com.SWD_G4.OrderFlow.entity.Order;
 
+import java.util.List;
+
 /**
- * Service interface for sending notifications
+ * Service interface for sending notifications.
+ * Callers inside order transactions should go through the outbox (OutboxService) instead;
+ * implementations throw AppException(NOTIFICATION_DELIVERY_FAILED) so the relay can retry.
  */
 public interface NotificationService {
     
     /**
-     * Send new order notification to florist
+     * Email addresses that new order notifications go to: every florist, or the configured fallback
+     * when there are none. Empty when notifications are disabled.
+     */
+    List<String> floristRecipients();
+    
+    /**
+     * Send new order notification to one florist
      * @param order the confirmed order
+     * @param floristEmail one of {@link #floristRecipients()}
      */
-    void sendFloristNotification(Order order);
+    void sendFloristNotification(Order order, String floristEmail);
     
     /**
      * Send order confirmation notification to customer
@@ -0,0 +1,56 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.repository.ArchivedOrderRepository;
+import com.SWD_G4.OrderFlow.repository.OrderItemRepository;
+import com.SWD_G4.OrderFlow.repository.OrderRepository;
+import com.SWD_G4.OrderFlow.repository.OrderViewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves closed orders out of orders / order_items / order_view into orders_archive,
+ * keeping the hot tables (and their indexes) limited to live orders.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiveService {
+    
+    // Final states: nothing can change these orders any more
+    private static final Set<Order.OrderStatus> CLOSED_STATUSES =
+            EnumSet.of(Order.OrderStatus.DELIVERED, Order.OrderStatus.CANCELLED, Order.OrderStatus.FAILED);
+    
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderViewRepository orderViewRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    
+    /**
+     * Archive up to chunkSize closed orders created before the cutoff, in one transaction.
+     * @return number of orders archived
+     */
+    @Transactional
+    public int archiveChunk(LocalDateTime before, int chunkSize) {
+        List<Long> ids = orderRepository.findArchivableIds(CLOSED_STATUSES, before, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        
+        archivedOrderRepository.copyFromView(ids, LocalDateTime.now());
+        orderViewRepository.deleteAllByOrderIdIn(ids);
+        orderItemRepository.deleteAllByOrderIdIn(ids);
+        orderRepository.deleteAllByIdIn(ids);
+        
+        log.debug("Archived {} order(s), ids {}..{}", ids.size(), ids.get(0), ids.get(ids.size() - 1));
+        return ids.size();
+    }
+}
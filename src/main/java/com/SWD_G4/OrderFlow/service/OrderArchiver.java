@@ -0,0 +1,55 @@
+package com.SWD_G4.OrderFlow.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically archives closed orders older than the retention period, chunk by chunk
+ * so each transaction (and the locks it holds) stays short.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiver {
+    
+    private final OrderArchiveService orderArchiveService;
+    
+    @Value("${app.orders.archive.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.orders.archive.retention-days:90}")
+    private long retentionDays;
+    
+    @Value("${app.orders.archive.chunk-size:500}")
+    private int chunkSize;
+    
+    @Value("${app.orders.archive.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+    
+    @Scheduled(fixedDelayString = "${app.orders.archive.interval-ms:3600000}",
+            initialDelayString = "${app.orders.archive.initial-delay-ms:300000}")
+    public void archiveClosedOrders() {
+        if (!enabled) {
+            return;
+        }
+        
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        long total = 0;
+        int chunks = 0;
+        int archived;
+        do {
+            archived = orderArchiveService.archiveChunk(before, chunkSize);
+            total += archived;
+            chunks++;
+        } while (archived == chunkSize && chunks < maxChunksPerRun);
+        
+        if (total > 0) {
+            log.info("Archived {} closed order(s) created before {}", total, before);
+        }
+    }
+}
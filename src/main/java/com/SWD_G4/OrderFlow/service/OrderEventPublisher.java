@@ -0,0 +1,42 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.configuration.KafkaConfig;
+import com.SWD_G4.OrderFlow.entity.OutboxEvent;
+import com.SWD_G4.OrderFlow.event.CartAbandonedMessage;
+import com.SWD_G4.OrderFlow.event.OrderEventMessage;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends events that carry their own payload from the outbox to their stream: order lifecycle events
+ * to {@code order-events}, abandoned carts to {@code cart-events}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEventPublisher {
+    
+    public static final String SCHEMA_VERSION_HEADER = "schema-version";
+    
+    private final KafkaTemplate<String, String> orderEventKafkaTemplate;
+    
+    /**
+     * Hand the event to the producer without waiting, so a relay batch can be sent as one
+     * compressed producer batch; the caller awaits the returned future.
+     */
+    public CompletableFuture<SendResult<String, String>> publish(OutboxEvent event) {
+        boolean cartEvent = event.getEventType() == OutboxEvent.EventType.CART_ABANDONED;
+        // Keyed by aggregate id (order id, or user id for cart events): one partition per aggregate keeps its events in order
+        ProducerRecord<String, String> record = new ProducerRecord<>(
+                cartEvent ? KafkaConfig.CART_EVENTS_TOPIC : KafkaConfig.ORDER_EVENTS_TOPIC,
+                String.valueOf(event.getAggregateId()), event.getPayload());
+        int schemaVersion = cartEvent ? CartAbandonedMessage.SCHEMA_VERSION : OrderEventMessage.SCHEMA_VERSION;
+        record.headers().add(SCHEMA_VERSION_HEADER, String.valueOf(schemaVersion).getBytes(StandardCharsets.UTF_8));
+        return orderEventKafkaTemplate.send(record);
+    }
+}
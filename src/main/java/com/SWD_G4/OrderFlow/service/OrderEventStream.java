@@ -0,0 +1,92 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.OutboxEvent;
+import com.SWD_G4.OrderFlow.event.OrderEventMessage;
+import com.SWD_G4.OrderFlow.event.OrderLifecycleEvent;
+import com.SWD_G4.OrderFlow.event.OrderStatusBulkChangedEvent;
+import com.SWD_G4.OrderFlow.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Turns order lifecycle changes into {@link OrderEventMessage}s and records them in the outbox,
+ * in the transaction of the change. The outbox relay then streams them to Kafka, so an event is
+ * published if and only if its change committed.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderEventStream {
+    
+    private final OutboxService outboxService;
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${app.orders.events.enabled:true}")
+    private boolean enabled;
+    
+    @EventListener
+    public void on(OrderLifecycleEvent event) {
+        if (!enabled) {
+            return;
+        }
+        
+        OrderEventMessage message = message(event.type(), event.orderId(), event.userId(),
+                event.previousStatus(), event.status(), event.version());
+        outboxService.enqueuePayloads(OutboxEvent.EventType.ORDER_LIFECYCLE, List.of(entry(message)));
+    }
+    
+    @EventListener
+    public void on(OrderStatusBulkChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        
+        OrderLifecycleEvent.Type type = typeOf(event.from(), event.to());
+        
+        // The bulk UPDATE bypassed the persistence context, so read user ids and new versions from the rows
+        List<Map.Entry<Long, String>> payloads = new ArrayList<>(event.orderIds().size());
+        for (Object[] row : orderRepository.findUserIdsAndVersions(event.orderIds())) {
+            payloads.add(entry(message(type, (Long) row[0], (Long) row[1], event.from(), event.to(), (Long) row[2])));
+        }
+        outboxService.enqueuePayloads(OutboxEvent.EventType.ORDER_LIFECYCLE, payloads);
+    }
+    
+    // Same types the single-order paths publish, so consumers see a bulk confirmation as CONFIRMED
+    private static OrderLifecycleEvent.Type typeOf(Order.OrderStatus from, Order.OrderStatus to) {
+        if (to == Order.OrderStatus.CANCELLED) {
+            return OrderLifecycleEvent.Type.CANCELLED;
+        }
+        if (from == Order.OrderStatus.PENDING && to == Order.OrderStatus.CONFIRMED) {
+            return OrderLifecycleEvent.Type.CONFIRMED;
+        }
+        return OrderLifecycleEvent.Type.STATUS_CHANGED;
+    }
+    
+    private static OrderEventMessage message(OrderLifecycleEvent.Type type, Long orderId, Long userId,
+                                             Order.OrderStatus previousStatus, Order.OrderStatus status, Long version) {
+        return new OrderEventMessage(OrderEventMessage.SCHEMA_VERSION, UUID.randomUUID().toString(), type,
+                orderId, userId, previousStatus, status, version, Instant.now());
+    }
+    
+    private Map.Entry<Long, String> entry(OrderEventMessage message) {
+        try {
+            return new AbstractMap.SimpleImmutableEntry<>(message.orderId(), objectMapper.writeValueAsString(message));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize order event", e);
+        }
+    }
+}
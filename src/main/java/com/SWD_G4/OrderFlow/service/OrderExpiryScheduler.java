@@ -0,0 +1,155 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.event.OrderLifecycleEvent;
+import com.SWD_G4.OrderFlow.event.OrderStatusBulkChangedEvent;
+import com.SWD_G4.OrderFlow.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cancels orders that stay PENDING longer than app.orders.expiry.pending-ttl-minutes.
+ * Deadlines live in an in-memory {@link TimingWheel}; they are added when an order is created and
+ * rebuilt from the PENDING rows in the database on startup, so a restart loses nothing. Orders confirmed
+ * or cancelled in the meantime are cancelled in the wheel; should one slip through, expiry only touches
+ * rows still PENDING.
+ */
+@Component
+@Slf4j
+public class OrderExpiryScheduler {
+    
+    // Deadlines from request threads; only the tick thread touches the wheel
+    private final ConcurrentLinkedQueue<Deadline> incoming = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Long> settled = new ConcurrentLinkedQueue<>();
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final TimingWheel<Long> wheel;
+    private final Counter expired;
+    
+    @Value("${app.orders.expiry.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.orders.expiry.pending-ttl-minutes:30}")
+    private long pendingTtlMinutes;
+    
+    @Value("${app.orders.expiry.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${app.orders.expiry.retry-delay-ms:60000}")
+    private long retryDelayMs;
+    
+    public OrderExpiryScheduler(OrderService orderService,
+                                OrderRepository orderRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.orders.expiry.tick-ms:1000}") long tickMs,
+                                @Value("${app.orders.expiry.wheel-size:512}") int wheelSize) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        this.expired = Counter.builder("orderflow.orders.expired")
+                .description("PENDING orders cancelled because they were never confirmed")
+                .register(meterRegistry);
+        meterRegistry.gauge("orderflow.orders.expiry.scheduled", this, scheduler -> scheduler.wheel.size());
+    }
+    
+    @TransactionalEventListener
+    public void on(OrderLifecycleEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.type() == OrderLifecycleEvent.Type.CREATED && event.status() == Order.OrderStatus.PENDING) {
+            incoming.add(new Deadline(event.orderId(), System.currentTimeMillis() + pendingTtl().toMillis()));
+        } else if (event.previousStatus() == Order.OrderStatus.PENDING) {
+            settled.add(event.orderId());
+        }
+    }
+    
+    @TransactionalEventListener
+    public void on(OrderStatusBulkChangedEvent event) {
+        if (enabled && event.from() == Order.OrderStatus.PENDING) {
+            settled.addAll(event.orderIds());
+        }
+    }
+    
+    /**
+     * Schedule every order that is PENDING in the database, keyed on its creation time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildFromDatabase() {
+        if (!enabled) {
+            return;
+        }
+        long count = 0;
+        long afterId = 0;
+        List<Object[]> page;
+        do {
+            page = orderRepository.findPendingAfter(afterId, PageRequest.of(0, batchSize));
+            for (Object[] row : page) {
+                Long orderId = (Long) row[0];
+                LocalDateTime createdAt = (LocalDateTime) row[1];
+                incoming.add(new Deadline(orderId, toEpochMillis(createdAt.plus(pendingTtl()))));
+                afterId = orderId;
+                count++;
+            }
+        } while (page.size() == batchSize);
+        
+        log.info("Rebuilt expiry schedule for {} pending order(s)", count);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.orders.expiry.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<Long> due = new ArrayList<>();
+        Deadline deadline;
+        while ((deadline = incoming.poll()) != null) {
+            if (!wheel.add(deadline.dueAtMs(), deadline.orderId())) {
+                due.add(deadline.orderId());
+            }
+        }
+        // After the adds, so an order created and confirmed since the last tick ends up unscheduled
+        Long settledId;
+        while ((settledId = settled.poll()) != null) {
+            wheel.cancel(settledId);
+        }
+        wheel.advance(System.currentTimeMillis(), due::add);
+        
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                expired.increment(orderService.expirePendingOrders(batch).size());
+            } catch (RuntimeException e) {
+                log.warn("Expiring {} order(s) failed, retrying in {} ms: {}", batch.size(), retryDelayMs, e.getMessage());
+                long retryAt = System.currentTimeMillis() + retryDelayMs;
+                batch.forEach(orderId -> incoming.add(new Deadline(orderId, retryAt)));
+            }
+        }
+    }
+    
+    private Duration pendingTtl() {
+        return Duration.ofMinutes(pendingTtlMinutes);
+    }
+    
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    private record Deadline(long orderId, long dueAtMs) {
+    }
+}
@@ -1,24 +1,52 @@
 package com.SWD_G4.OrderFlow.service;
 
+import com.SWD_G4.OrderFlow.dto.request.BulkOrderStatusRequest;
 import com.SWD_G4.OrderFlow.dto.request.CreateOrderRequest;
+import com.SWD_G4.OrderFlow.dto.request.OrderExportFormat;
+import com.SWD_G4.OrderFlow.dto.request.OrderFeedFilter;
+import com.SWD_G4.OrderFlow.dto.response.BulkOrderStatusResponse;
+import com.SWD_G4.OrderFlow.dto.response.OrderExportRow;
+import com.SWD_G4.OrderFlow.dto.response.OrderFeedResponse;
 import com.SWD_G4.OrderFlow.dto.response.OrderResponse;
 import com.SWD_G4.OrderFlow.entity.*;
+import com.SWD_G4.OrderFlow.event.OrderLifecycleEvent;
+import com.SWD_G4.OrderFlow.event.OrderStatusBulkChangedEvent;
+import com.SWD_G4.OrderFlow.event.ReservedStockReleasedEvent;
 import com.SWD_G4.OrderFlow.exception.AppException;
 import com.SWD_G4.OrderFlow.exception.ErrorCode;
 import com.SWD_G4.OrderFlow.mapper.OrderMapper;
 import com.SWD_G4.OrderFlow.repository.*;
-import com.SWD_G4.OrderFlow.service.NotificationService;
 import com.SWD_G4.OrderFlow.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -28,16 +56,33 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
     private final ProductService productService;
+    private final CartService cartService;
     private final OrderMapper orderMapper;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
+    private final OrderViewService orderViewService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    
+    // Stock decrements collected by withBatchedStock on the current thread, applied when the batch ends
+    private final ThreadLocal<Map<Long, Integer>> batchedStock = new ThreadLocal<>();
+    
+    private static final int MAX_FEED_PAGE_SIZE = 100;
+    private static final int CSV_BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER =
+            "id,order_number,user_id,username,total_amount,status,payment_method,shipping_address,created_at,updated_at\r\n";
+    
+    @Value("${app.orders.florist-list-limit:100}")
+    private int floristListLimit;
+    
+    @Value("${app.flash-sale.enabled:false}")
+    private boolean flashSaleEnabled;
     
     public OrderResponse createOrder(User user, CreateOrderRequest request) {
-        // Get user's cart with items
-        Cart cart = cartRepository.findByUserWithItems(user)
-                .orElseThrow(() -> new AppException(ErrorCode.CART_NOT_FOUND));
+        // Get user's cart with items (written through from Redis when the hot cart store is on)
+        Cart cart = cartService.loadCheckoutCart(user);
         
         if (cart.getCartItems() == null || cart.getCartItems().isEmpty()) {
             throw new AppException(ErrorCode.EMPTY_CART);
@@ -50,18 +95,13 @@ public class OrderService {
         String orderNumber = generateOrderNumber();
         
         // Determine shipping address
-        String shippingAddress = request.getShippingAddress();
-        if (shippingAddress == null || shippingAddress.trim().isEmpty()) {
-            // Use user's saved address if not provided
-            shippingAddress = buildUserAddress(user);
-            log.info("Using user's saved address for order: {}", shippingAddress);
-        }
+        String shippingAddress = resolveShippingAddress(user, request.getShippingAddress());
         
         // Create order
         Order order = Order.builder()
                 .orderNumber(orderNumber)
                 .user(user)
-                .totalAmount(cart.getTotalAmount())
+                .totalAmount(cart.getTotalAmount().toBigDecimal())
                 .status(Order.OrderStatus.PENDING)
                 .shippingAddress(shippingAddress)
                 .notes(request.getNotes())
@@ -79,8 +119,8 @@ public class OrderService {
                             .order(finalOrder)
                             .product(cartItem.getProduct())
                             .quantity(cartItem.getQuantity())
-                            .unitPrice(cartItem.getUnitPrice())
-                            .totalPrice(cartItem.getTotalPrice())
+                            .unitPrice(cartItem.getUnitPrice().toBigDecimal())
+                            .totalPrice(cartItem.getTotalPrice().toBigDecimal())
                             .build();
                     
                     return orderItemRepository.save(orderItem);
@@ -89,6 +129,7 @@ public class OrderService {
 
 
         order.setOrderItems(orderItems);
+        eventPublisher.publishEvent(OrderLifecycleEvent.of(order, OrderLifecycleEvent.Type.CREATED));
         
         // Process COD flow
         if (request.getPaymentMethod() == PaymentMethod.COD) {
@@ -96,10 +137,7 @@ public class OrderService {
         }
         
         // Clear cart after successful order creation
-        cartItemRepository.deleteByCart(cart);
-        cart.getCartItems().clear(); // Clear the collection to avoid Hibernate merge issues
-        cart.calculateTotalAmount();
-        cartRepository.save(cart);
+        cartService.emptyCart(cart);
         
         log.info("Order created successfully: {}", orderNumber);
         confirmCODOrder(user, order.getId());
@@ -107,6 +145,108 @@ public class OrderService {
         return orderMapper.toOrderResponse(order);
     }
     
+    /**
+     * Write orders whose stock the flash-sale sequencer already allocated, all in one transaction.
+     * Stock is taken with one conditional update per product; COD orders are confirmed right away,
+     * as createOrder does.
+     */
+    public void persistFlashSaleOrders(List<FlashSaleSequencer.Allocation> allocations) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        List<Order> confirmed = new ArrayList<>();
+        
+        for (FlashSaleSequencer.Allocation allocation : allocations) {
+            BigDecimal total = Money.of(allocation.unitPrice()).times(allocation.quantity()).toBigDecimal();
+            Order order = orderRepository.save(Order.builder()
+                    .orderNumber(allocation.orderNumber())
+                    .user(userRepository.getReferenceById(allocation.userId()))
+                    .totalAmount(total)
+                    .status(Order.OrderStatus.PENDING)
+                    .shippingAddress(allocation.shippingAddress())
+                    .notes(allocation.notes())
+                    .paymentMethod(allocation.paymentMethod())
+                    .stockReserved(true)
+                    .build());
+            
+            OrderItem item = orderItemRepository.save(OrderItem.builder()
+                    .order(order)
+                    .product(productRepository.getReferenceById(allocation.productId()))
+                    .quantity(allocation.quantity())
+                    .unitPrice(allocation.unitPrice())
+                    .totalPrice(total)
+                    .build());
+            order.setOrderItems(new ArrayList<>(List.of(item)));
+            eventPublisher.publishEvent(OrderLifecycleEvent.of(order, OrderLifecycleEvent.Type.CREATED));
+            
+            quantities.merge(allocation.productId(), allocation.quantity(), Integer::sum);
+            if (allocation.paymentMethod() == PaymentMethod.COD) {
+                order.setStatus(Order.OrderStatus.CONFIRMED);
+                confirmed.add(order);
+            }
+        }
+        
+        decrementStock(quantities);
+        
+        if (!confirmed.isEmpty()) {
+            // Flush the status change so the CONFIRMED events carry the new versions
+            orderRepository.flush();
+            List<Long> confirmedIds = confirmed.stream().map(Order::getId).toList();
+            outboxService.enqueueAll(confirmedIds, OutboxEvent.EventType.FLORIST_NOTIFICATION);
+            outboxService.enqueueAll(confirmedIds, OutboxEvent.EventType.CUSTOMER_NOTIFICATION);
+            confirmed.forEach(order -> eventPublisher.publishEvent(OrderLifecycleEvent.of(order,
+                    OrderLifecycleEvent.Type.CONFIRMED, Order.OrderStatus.PENDING)));
+        }
+        
+        log.info("Persisted {} flash-sale order(s)", allocations.size());
+    }
+    
+    /**
+     * Record a flash-sale allocation that could not be written as a FAILED order (holding no stock)
+     * and queue a status notification, so the customer who was told it was accepted hears otherwise.
+     */
+    public void recordFailedFlashSaleOrder(FlashSaleSequencer.Allocation allocation) {
+        BigDecimal total = Money.of(allocation.unitPrice()).times(allocation.quantity()).toBigDecimal();
+        Order order = orderRepository.save(Order.builder()
+                .orderNumber(allocation.orderNumber())
+                .user(userRepository.getReferenceById(allocation.userId()))
+                .totalAmount(total)
+                .status(Order.OrderStatus.FAILED)
+                .shippingAddress(allocation.shippingAddress())
+                .notes(allocation.notes())
+                .paymentMethod(allocation.paymentMethod())
+                .stockReserved(false)
+                .build());
+        
+        OrderItem item = orderItemRepository.save(OrderItem.builder()
+                .order(order)
+                .product(productRepository.getReferenceById(allocation.productId()))
+                .quantity(allocation.quantity())
+                .unitPrice(allocation.unitPrice())
+                .totalPrice(total)
+                .build());
+        order.setOrderItems(new ArrayList<>(List.of(item)));
+        eventPublisher.publishEvent(OrderLifecycleEvent.of(order, OrderLifecycleEvent.Type.CREATED));
+        outboxService.enqueue(order, OutboxEvent.EventType.ORDER_STATUS_NOTIFICATION);
+        
+        log.warn("Recorded flash-sale order {} as FAILED", allocation.orderNumber());
+    }
+    
+    /**
+     * Run several checkouts in the caller's transaction with their stock decrements summed per
+     * product and applied at the end, one conditional UPDATE per product for the whole batch.
+     * A product that runs short fails the batch with INSUFFICIENT_STOCK.
+     */
+    public <T> T withBatchedStock(Supplier<T> checkouts) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        batchedStock.set(quantities);
+        try {
+            T result = checkouts.get();
+            decrementStock(quantities);
+            return result;
+        } finally {
+            batchedStock.remove();
+        }
+    }
+    
     public OrderResponse confirmCODOrder(User user, Long orderId) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
@@ -127,35 +267,45 @@ public class OrderService {
         }
         
         // Update order status to CONFIRMED
-//        order = orderRepository.save(order);
-        
-        // Decrement product inventory
-        decrementProductInventory(order.getOrderItems());
+        order.setStatus(Order.OrderStatus.CONFIRMED);
         
-        // Send notification to florist
-        notificationService.sendFloristNotification(order);
+        // Decrement product inventory, unless it was already taken when the order was placed
+        if (!Boolean.TRUE.equals(order.getStockReserved())) {
+            decrementProductInventory(order.getOrderItems());
+        }
         
-        // Send confirmation notification to customer
-        notificationService.sendCustomerNotification(order);
+        // Queue florist and customer notifications; they are delivered after commit by the outbox relay
+        outboxService.enqueue(order, OutboxEvent.EventType.FLORIST_NOTIFICATION);
+        outboxService.enqueue(order, OutboxEvent.EventType.CUSTOMER_NOTIFICATION);
+        // Flush so the event carries the version of the confirmed order (consumers order events by it)
+        order = orderRepository.saveAndFlush(order);
+        eventPublisher.publishEvent(OrderLifecycleEvent.of(order, OrderLifecycleEvent.Type.CONFIRMED,
+                Order.OrderStatus.PENDING));
         
         log.info("COD order confirmed: {}", order.getOrderNumber());
         
         return orderMapper.toOrderResponse(order);
     }
     
+    @Transactional(readOnly = true)
     public OrderResponse getOrder(User user, Long orderId) {
-        Order order = orderRepository.findById(orderId)
+        // Single-row lookup in the read model; fall back to the write model if the view is not built yet,
+        // and to the archive only when the order is in neither
+        OrderResponse order = orderViewService.findOrder(orderId)
+                .or(() -> orderRepository.findByIdWithDetails(orderId).map(orderMapper::toOrderResponse))
+                .or(() -> orderViewService.findArchivedOrder(orderId))
                 .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
         
         // Verify order belongs to user
-        if (!order.getUser().getId().equals(user.getId())) {
+        if (!order.getUserId().equals(user.getId())) {
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
         
-        return orderMapper.toOrderResponse(order);
+        return order;
     }
     
-    public List<OrderResponse> getUserOrders(User user) {
+    @Transactional(readOnly = true)
+    public List<OrderResponse> getUserOrders(User user, boolean includeHistory) {
         log.info("Getting orders for user: {} (ID: {})", user.getUsername(), user.getId());
         
         // Check if user has FLORIST role
@@ -163,14 +313,17 @@ public class OrderService {
                 user.getRoles().stream()
                         .anyMatch(role -> "FLORIST".equals(role.getName()));
         
-        List<Order> orders;
+        // Served from the order_view read model
+        List<OrderResponse> orders;
         if (isFlorist) {
-            // Florist can see all orders
-            log.info("User {} is a florist, getting all orders", user.getUsername());
-            orders = orderRepository.findAllWithUser();
+            // Florist can see all orders; bounded to the newest ones, older pages come from the feed
+            log.info("User {} is a florist, getting latest {} orders", user.getUsername(), floristListLimit);
+            orders = orderViewService.findFeedPage(new OrderFeedFilter(), null, floristListLimit);
         } else {
-            // Regular user can only see their own orders
-            orders = orderRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
+            // Regular user can only see their own orders; archived ones only when history is asked for
+            orders = includeHistory
+                    ? orderViewService.findUserOrderHistory(user.getId())
+                    : orderViewService.findUserOrders(user.getId());
         }
         
         log.info("Found {} orders for user: {} (isFlorist: {})", orders.size(), user.getUsername(), isFlorist);
@@ -178,34 +331,267 @@ public class OrderService {
         if (!orders.isEmpty()) {
             log.info("First order details: ID={}, OrderNumber={}, Status={}, UserID={}", 
                     orders.get(0).getId(), orders.get(0).getOrderNumber(), orders.get(0).getStatus(),
-                    orders.get(0).getUser() != null ? orders.get(0).getUser().getId() : "null");
+                    orders.get(0).getUserId());
         }
         
-        return orders.stream()
-                .map(orderMapper::toOrderResponse)
-                .toList();
+        return orders;
+    }
+    
+    /**
+     * Keyset-paginated feed over all orders for florists, newest first.
+     * @param cursor nextCursor from the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public OrderFeedResponse getOrderFeed(OrderFeedFilter filter, Long cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+        
+        // Fetch one extra row to know whether another page exists
+        List<OrderResponse> orders = orderViewService.findFeedPage(filter, cursor, pageSize + 1);
+        
+        boolean hasMore = orders.size() > pageSize;
+        if (hasMore) {
+            orders = orders.subList(0, pageSize);
+        }
+        
+        return OrderFeedResponse.builder()
+                .orders(orders)
+                .nextCursor(hasMore ? orders.get(orders.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    /**
+     * Write the filtered orders as NDJSON or CSV straight from a forward-only cursor.
+     * Memory use is constant: rows are projections, written and dropped one at a time.
+     * The caller owns (and closes) the output stream.
+     */
+    @Transactional(readOnly = true)
+    public long exportOrderFeed(OrderFeedFilter filter, OrderExportFormat format, OutputStream out) {
+        long count;
+        try (Stream<OrderExportRow> rows = orderRepository.streamFeed(filter.getStatus(), filter.getPaymentMethod(),
+                filter.getFrom(), filter.getTo())) {
+            Iterable<OrderExportRow> iterable = rows::iterator;
+            count = format == OrderExportFormat.CSV ? writeCsv(iterable, out) : writeNdjson(iterable, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        log.info("Exported {} orders as {}", count, format);
+        return count;
+    }
+    
+    private long writeNdjson(Iterable<OrderExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        // Leave the caller's stream open (it may be a gzip stream that still needs its trailer)
+        SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+        for (OrderExportRow row : rows) {
+            writer.write(row);
+            count++;
+        }
+        writer.close();
+        return count;
     }
     
-    public OrderResponse updateOrderStatus(Long orderId, Order.OrderStatus newStatus) {
+    private long writeCsv(Iterable<OrderExportRow> rows, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), CSV_BUFFER_SIZE);
+        writer.write(CSV_HEADER);
+        for (OrderExportRow row : rows) {
+            writer.write(csvLine(row));
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+    
+    private static String csvLine(OrderExportRow row) {
+        return String.join(",",
+                String.valueOf(row.getId()),
+                csvField(row.getOrderNumber()),
+                String.valueOf(row.getUserId()),
+                csvField(row.getUsername()),
+                row.getTotalAmount() != null ? row.getTotalAmount().toPlainString() : "",
+                row.getStatus() != null ? row.getStatus().name() : "",
+                row.getPaymentMethod() != null ? row.getPaymentMethod().name() : "",
+                csvField(row.getShippingAddress()),
+                row.getCreatedAt() != null ? row.getCreatedAt().toString() : "",
+                row.getUpdatedAt() != null ? row.getUpdatedAt().toString() : "") + "\r\n";
+    }
+    
+    // RFC 4180: quote fields containing separators, quotes or line breaks; double embedded quotes.
+    // Values a spreadsheet would evaluate as a formula are prefixed with a quote first.
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+    
+    /**
+     * @param expectedVersion optional version the client last saw; a mismatch is reported as a conflict
+     */
+    public OrderResponse updateOrderStatus(Long orderId, Order.OrderStatus newStatus, Long expectedVersion) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
         
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new AppException(ErrorCode.CONCURRENT_MODIFICATION);
+        }
+        
         Order.OrderStatus oldStatus = order.getStatus();
+        if (!oldStatus.canTransitionTo(newStatus)) {
+            throw new AppException(ErrorCode.INVALID_STATUS_TRANSITION);
+        }
+        
         order.setStatus(newStatus);
-        order = orderRepository.save(order);
+        // Flush now so a concurrent update fails the version check before notifications are queued
+        order = orderRepository.saveAndFlush(order);
         
         log.info("Order status updated from {} to {} for order: {}", 
                 oldStatus, newStatus, order.getOrderNumber());
         
-        // Send status update notification to customer
-        notificationService.sendOrderStatusUpdateNotification(order);
+        if (oldStatus == Order.OrderStatus.PENDING && newStatus == Order.OrderStatus.CANCELLED
+                && Boolean.TRUE.equals(order.getStockReserved())) {
+            releaseReservedStock(List.of(order.getId()));
+        }
+        
+        if (oldStatus == Order.OrderStatus.PENDING && newStatus == Order.OrderStatus.CONFIRMED) {
+            // Same side effects as confirmCODOrder: take the stock and notify florists and customers
+            if (!Boolean.TRUE.equals(order.getStockReserved())) {
+                decrementProductInventory(order.getOrderItems());
+            }
+            outboxService.enqueue(order, OutboxEvent.EventType.FLORIST_NOTIFICATION);
+            outboxService.enqueue(order, OutboxEvent.EventType.CUSTOMER_NOTIFICATION);
+            eventPublisher.publishEvent(OrderLifecycleEvent.of(order, OrderLifecycleEvent.Type.CONFIRMED, oldStatus));
+            return orderMapper.toOrderResponse(order);
+        }
+        
+        eventPublisher.publishEvent(OrderLifecycleEvent.of(order, newStatus == Order.OrderStatus.CANCELLED
+                ? OrderLifecycleEvent.Type.CANCELLED : OrderLifecycleEvent.Type.STATUS_CHANGED, oldStatus));
+        
+        // Queue status update notification to customer (delivered after commit)
+        outboxService.enqueue(order, OutboxEvent.EventType.ORDER_STATUS_NOTIFICATION);
         
         return orderMapper.toOrderResponse(order);
     }
     
+    /**
+     * Move many orders from expectedStatus to status in one transaction: one locking SELECT,
+     * one UPDATE ... WHERE id IN (...) AND status = :expected, and one batch of outbox notifications.
+     * Orders not in expectedStatus are skipped and reported back.
+     */
+    public BulkOrderStatusResponse bulkUpdateOrderStatus(BulkOrderStatusRequest request) {
+        Order.OrderStatus expected = request.getExpectedStatus();
+        Order.OrderStatus target = request.getStatus();
+        if (!expected.canTransitionTo(target)) {
+            throw new AppException(ErrorCode.INVALID_STATUS_TRANSITION);
+        }
+        
+        List<Long> requestedIds = request.getOrderIds().stream().distinct().toList();
+        List<Long> updatedIds = transitionAll(requestedIds, expected, target);
+        
+        Set<Long> updated = new HashSet<>(updatedIds);
+        List<Long> skippedIds = requestedIds.stream()
+                .filter(id -> !updated.contains(id))
+                .toList();
+        
+        log.info("Bulk status update {} -> {}: {} updated, {} skipped",
+                expected, target, updatedIds.size(), skippedIds.size());
+        
+        return BulkOrderStatusResponse.builder()
+                .status(target)
+                .updatedOrderIds(updatedIds)
+                .skippedOrderIds(skippedIds)
+                .build();
+    }
+    
+    /**
+     * Cancel the given orders that are still PENDING (confirmed or already cancelled ones are skipped),
+     * returning any stock they held.
+     * @return ids of the orders actually cancelled
+     */
+    public List<Long> expirePendingOrders(Collection<Long> orderIds) {
+        List<Long> cancelledIds = transitionAll(orderIds, Order.OrderStatus.PENDING, Order.OrderStatus.CANCELLED);
+        if (!cancelledIds.isEmpty()) {
+            log.info("Expired {} unconfirmed order(s)", cancelledIds.size());
+        }
+        return cancelledIds;
+    }
+    
+    private List<Long> transitionAll(Collection<Long> orderIds, Order.OrderStatus expected, Order.OrderStatus target) {
+        List<Long> updatedIds = orderRepository.lockIdsWithStatus(orderIds, expected.name());
+        if (updatedIds.isEmpty()) {
+            return updatedIds;
+        }
+        
+        orderRepository.bulkUpdateStatus(updatedIds, expected, target, LocalDateTime.now());
+        if (expected == Order.OrderStatus.PENDING && target == Order.OrderStatus.CANCELLED) {
+            releaseReservedStock(updatedIds);
+        }
+        if (expected == Order.OrderStatus.PENDING && target == Order.OrderStatus.CONFIRMED) {
+            // Same side effects as confirmCODOrder: take the stock and notify florists and customers
+            takeUnreservedStock(updatedIds);
+            outboxService.enqueueAll(updatedIds, OutboxEvent.EventType.FLORIST_NOTIFICATION);
+            outboxService.enqueueAll(updatedIds, OutboxEvent.EventType.CUSTOMER_NOTIFICATION);
+        } else {
+            outboxService.enqueueAll(updatedIds, OutboxEvent.EventType.ORDER_STATUS_NOTIFICATION);
+        }
+        eventPublisher.publishEvent(new OrderStatusBulkChangedEvent(updatedIds, expected, target));
+        return updatedIds;
+    }
+    
+    /**
+     * Give back the stock held by cancelled, never-confirmed orders.
+     */
+    private void releaseReservedStock(Collection<Long> orderIds) {
+        List<Object[]> reserved = orderItemRepository.sumReservedQuantities(orderIds);
+        if (reserved.isEmpty()) {
+            return;
+        }
+        
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (Object[] row : reserved) {
+            Long productId = (Long) row[0];
+            int quantity = ((Number) row[1]).intValue();
+            productRepository.incrementStock(productId, quantity);
+            productService.invalidateCache(productId);
+            quantities.put(productId, quantity);
+        }
+        orderRepository.clearStockReserved(orderIds);
+        eventPublisher.publishEvent(new ReservedStockReleasedEvent(quantities));
+    }
+    
+    /**
+     * Take the stock of confirmed orders that did not reserve it at checkout, one conditional
+     * UPDATE per product. A product that runs short fails the whole batch with INSUFFICIENT_STOCK.
+     */
+    private void takeUnreservedStock(Collection<Long> orderIds) {
+        for (Object[] row : orderItemRepository.sumUnreservedQuantities(orderIds)) {
+            Long productId = (Long) row[0];
+            int quantity = ((Number) row[1]).intValue();
+            if (productRepository.decrementStock(productId, quantity) == 0) {
+                throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
+            }
+            productService.invalidateCache(productId);
+        }
+    }
+    
     private void validateStockAvailability(List<CartItem> cartItems) {
         for (CartItem cartItem : cartItems) {
             Product product = cartItem.getProduct();
+            // Stock of flash-sale products is owned by the sequencer; a cart checkout would bypass it
+            if (flashSaleEnabled && Boolean.TRUE.equals(product.getFlashSale())) {
+                throw new AppException(ErrorCode.FLASH_SALE_CHECKOUT_REQUIRED);
+            }
             if (product.getStockQuantity() < cartItem.getQuantity()) {
                 throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
             }
@@ -219,25 +605,49 @@ public class OrderService {
     }
     
     private void decrementProductInventory(List<OrderItem> orderItems) {
+        Map<Long, Integer> quantities = new HashMap<>();
         for (OrderItem orderItem : orderItems) {
-            Product product = orderItem.getProduct();
-            int newStock = product.getStockQuantity() - orderItem.getQuantity();
-            product.setStockQuantity(newStock);
-            // Save through ProductService to invalidate cache (hotswap)
-            productService.save(product);
-            
-            log.info("Decremented stock for product {}: {} -> {} (cache invalidated)", 
-                    product.getName(), orderItem.getQuantity(), newStock);
+            quantities.merge(orderItem.getProduct().getId(), orderItem.getQuantity(), Integer::sum);
+        }
+        
+        Map<Long, Integer> batch = batchedStock.get();
+        if (batch != null) {
+            quantities.forEach((productId, quantity) -> batch.merge(productId, quantity, Integer::sum));
+            return;
         }
+        decrementStock(quantities);
+    }
+    
+    // Conditional UPDATE per product: concurrent confirmations cannot lose a decrement or oversell
+    private void decrementStock(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            if (productRepository.decrementStock(productId, quantity) == 0) {
+                throw new AppException(ErrorCode.INSUFFICIENT_STOCK);
+            }
+            productService.invalidateCache(productId);
+            log.info("Decremented stock for product {} by {} (cache invalidated)", productId, quantity);
+        });
     }
     
     
-    private String generateOrderNumber() {
+    static String generateOrderNumber() {
         String timestamp = String.valueOf(System.currentTimeMillis());
         String uuid = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         return "ORD-" + timestamp + "-" + uuid;
     }
     
+    /**
+     * The requested address, or the user's saved address if none was given.
+     */
+    public String resolveShippingAddress(User user, String requestedAddress) {
+        if (requestedAddress == null || requestedAddress.trim().isEmpty()) {
+            String shippingAddress = buildUserAddress(user);
+            log.info("Using user's saved address for order: {}", shippingAddress);
+            return shippingAddress;
+        }
+        return requestedAddress;
+    }
+    
     private String buildUserAddress(User user) {
         StringBuilder address = new StringBuilder();
         
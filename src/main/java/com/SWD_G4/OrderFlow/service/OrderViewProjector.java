@@ -0,0 +1,55 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.event.OrderLifecycleEvent;
+import com.SWD_G4.OrderFlow.event.OrderStatusBulkChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps order_view in step with the write model. Runs synchronously in the order
+ * transaction, so a read right after a write already sees the new view.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderViewProjector {
+    
+    private final OrderViewService orderViewService;
+    
+    @Value("${app.orders.read-model.backfill-chunk-size:200}")
+    private int backfillChunkSize;
+    
+    @EventListener
+    public void on(OrderLifecycleEvent event) {
+        switch (event.type()) {
+            case CREATED, CONFIRMED -> orderViewService.project(event.orderId());
+            case STATUS_CHANGED, CANCELLED -> orderViewService.updateStatus(event.orderId(), event.status(), event.version());
+        }
+    }
+    
+    @EventListener
+    public void on(OrderStatusBulkChangedEvent event) {
+        orderViewService.updateStatusAll(event.orderIds(), event.to());
+    }
+    
+    /**
+     * Build views for orders written before the read model existed, one chunk per transaction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingViews() {
+        long total = 0;
+        int projected;
+        do {
+            projected = orderViewService.backfill(backfillChunkSize);
+            total += projected;
+        } while (projected == backfillChunkSize);
+        
+        if (total > 0) {
+            log.info("Backfilled order_view for {} existing order(s)", total);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.dto.request.OrderFeedFilter;
+import com.SWD_G4.OrderFlow.dto.response.OrderResponse;
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.OrderView;
+import com.SWD_G4.OrderFlow.mapper.OrderViewMapper;
+import com.SWD_G4.OrderFlow.repository.ArchivedOrderRepository;
+import com.SWD_G4.OrderFlow.repository.OrderRepository;
+import com.SWD_G4.OrderFlow.repository.OrderViewRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Reads and maintains the order_view read model.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OrderViewService {
+    
+    private final OrderViewRepository orderViewRepository;
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderViewMapper orderViewMapper;
+    
+    /**
+     * (Re)build the view row of an order from the write model.
+     * Inside the order transaction the order is already in the persistence context.
+     */
+    public void project(Long orderId) {
+        orderRepository.findById(orderId)
+                .ifPresentOrElse(
+                        order -> orderViewRepository.save(orderViewMapper.toOrderView(order)),
+                        () -> log.warn("Cannot project order {}: not found", orderId));
+    }
+    
+    public void updateStatus(Long orderId, Order.OrderStatus status, Long version) {
+        int updated = orderViewRepository.updateStatus(orderId, status, version, LocalDateTime.now());
+        if (updated == 0) {
+            // No view yet (e.g. order predates the read model): build it fully
+            project(orderId);
+        }
+    }
+    
+    public void updateStatusAll(List<Long> orderIds, Order.OrderStatus status) {
+        orderViewRepository.updateStatusAll(orderIds, status, LocalDateTime.now());
+    }
+    
+    /**
+     * Project up to chunkSize orders that have no view row yet.
+     * @return number of orders projected
+     */
+    public int backfill(int chunkSize) {
+        List<Long> ids = orderRepository.findIdsWithoutView(PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        
+        List<OrderView> views = orderRepository.findAllWithUserByIdIn(ids).stream()
+                .map(orderViewMapper::toOrderView)
+                .toList();
+        orderViewRepository.saveAll(views);
+        return views.size();
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<OrderResponse> findOrder(Long orderId) {
+        return orderViewRepository.findById(orderId).map(orderViewMapper::toOrderResponse);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<OrderResponse> findUserOrders(Long userId) {
+        return orderViewRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+                .map(orderViewMapper::toOrderResponse)
+                .toList();
+    }
+    
+    /**
+     * Look up an order that was moved to the archive. Only used after a miss on the hot tables.
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderResponse> findArchivedOrder(Long orderId) {
+        return archivedOrderRepository.findById(orderId).map(orderViewMapper::toOrderResponse);
+    }
+    
+    /**
+     * Live and archived orders of a user, newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderResponse> findUserOrderHistory(Long userId) {
+        List<OrderResponse> live = findUserOrders(userId);
+        List<OrderResponse> archived = archivedOrderRepository.findByUserIdOrderByCreatedAtDesc(userId).stream()
+                .map(orderViewMapper::toOrderResponse)
+                .toList();
+        if (archived.isEmpty()) {
+            return live;
+        }
+        
+        return Stream.concat(live.stream(), archived.stream())
+                .sorted(Comparator.comparing(OrderResponse::getCreatedAt).reversed())
+                .toList();
+    }
+    
+    /**
+     * Keyset page of all orders, newest first; limit rows at most.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderResponse> findFeedPage(OrderFeedFilter filter, Long cursor, int limit) {
+        String paymentMethod = filter.getPaymentMethod() != null ? filter.getPaymentMethod().name() : null;
+        return orderViewRepository.findFeedPage(filter.getStatus(), paymentMethod, filter.getFrom(), filter.getTo(),
+                        cursor, PageRequest.of(0, limit)).stream()
+                .map(orderViewMapper::toOrderResponse)
+                .toList();
+    }
+}
@@ -0,0 +1,171 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.configuration.AsyncConfig;
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.OutboxEvent;
+import com.SWD_G4.OrderFlow.event.OutboxEnqueuedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers outbox events (Kafka + email) outside of request transactions.
+ * Triggered right after a commit that enqueued events, and by a periodic poll
+ * that handles retries and anything a crashed node left behind.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxRelay {
+    
+    private final OutboxService outboxService;
+    private final NotificationService notificationService;
+    private final OrderEventPublisher orderEventPublisher;
+    
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean rerunRequested = new AtomicBoolean(false);
+    
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+    
+    @Value("${app.outbox.retention-hours:72}")
+    private long retentionHours;
+    
+    @Value("${app.orders.events.send-timeout-ms:10000}")
+    private long eventSendTimeoutMs;
+    
+    @Async(AsyncConfig.OUTBOX_EXECUTOR)
+    @TransactionalEventListener
+    public void onEventsEnqueued(OutboxEnqueuedEvent event) {
+        relayPending();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        relayPending();
+    }
+    
+    @Scheduled(fixedDelayString = "${app.outbox.purge-interval-ms:3600000}")
+    public void purgeSent() {
+        int purged = outboxService.purgeSentBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (purged > 0) {
+            log.info("Purged {} delivered outbox event(s)", purged);
+        }
+    }
+    
+    /**
+     * Drain deliverable events batch by batch. Concurrent triggers on this node are
+     * coalesced into a rerun of the loop instead of a second parallel drain.
+     */
+    public void relayPending() {
+        if (!running.compareAndSet(false, true)) {
+            rerunRequested.set(true);
+            return;
+        }
+        
+        try {
+            boolean more;
+            do {
+                rerunRequested.set(false);
+                List<OutboxEvent> batch = outboxService.claimBatch(batchSize);
+                boolean fannedOut = dispatchBatch(batch);
+                more = batch.size() == batchSize || fannedOut || rerunRequested.get();
+            } while (more);
+        } catch (Exception e) {
+            log.error("Outbox relay run aborted", e);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    /**
+     * @return whether events were fanned out into new per-recipient events
+     */
+    private boolean dispatchBatch(List<OutboxEvent> batch) {
+        if (batch.isEmpty()) {
+            return false;
+        }
+        
+        boolean fannedOut = false;
+        List<Long> delivered = new ArrayList<>(batch.size());
+        Map<Long, CompletableFuture<?>> streamed = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            try {
+                if (isStreamed(event)) {
+                    // Not awaited one by one: the producer batches and compresses the whole lot
+                    streamed.put(event.getId(), orderEventPublisher.publish(event));
+                    continue;
+                }
+                if (event.getEventType() == OutboxEvent.EventType.FLORIST_NOTIFICATION && event.getPayload() == null) {
+                    // Enqueued per order; becomes one event per florist and is delivered by the next pass
+                    outboxService.fanOut(event, notificationService.floristRecipients());
+                    fannedOut = true;
+                    continue;
+                }
+                dispatch(event);
+                delivered.add(event.getId());
+            } catch (Exception e) {
+                outboxService.markFailed(event.getId(), e.getMessage());
+            }
+        }
+        awaitStreamed(streamed, delivered);
+        
+        outboxService.markSent(delivered);
+        log.info("Outbox relay delivered {}/{} event(s)", delivered.size(), batch.size());
+        return fannedOut;
+    }
+    
+    private static boolean isStreamed(OutboxEvent event) {
+        return event.getEventType() == OutboxEvent.EventType.ORDER_LIFECYCLE
+                || event.getEventType() == OutboxEvent.EventType.CART_ABANDONED;
+    }
+    
+    private void awaitStreamed(Map<Long, CompletableFuture<?>> streamed, List<Long> delivered) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(eventSendTimeoutMs);
+        streamed.forEach((eventId, future) -> {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                delivered.add(eventId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outboxService.markFailed(eventId, "Interrupted while publishing");
+            } catch (ExecutionException e) {
+                outboxService.markFailed(eventId, e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                outboxService.markFailed(eventId, "Timed out publishing to the event stream");
+            }
+        });
+    }
+    
+    private void dispatch(OutboxEvent event) {
+        Optional<Order> loaded = outboxService.loadOrderForDelivery(event.getAggregateId());
+        if (loaded.isEmpty()) {
+            log.warn("Order {} for outbox event {} no longer exists, dropping", event.getAggregateId(), event.getId());
+            return;
+        }
+        
+        Order order = loaded.get();
+        switch (event.getEventType()) {
+            case FLORIST_NOTIFICATION -> notificationService.sendFloristNotification(order, event.getPayload());
+            case CUSTOMER_NOTIFICATION -> notificationService.sendCustomerNotification(order);
+            case ORDER_STATUS_NOTIFICATION -> notificationService.sendOrderStatusUpdateNotification(order);
+            case ORDER_LIFECYCLE, CART_ABANDONED -> throw new IllegalStateException("Payload events are streamed, not dispatched");
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.OutboxEvent;
+import com.SWD_G4.OrderFlow.event.OutboxEnqueuedEvent;
+import com.SWD_G4.OrderFlow.repository.OrderRepository;
+import com.SWD_G4.OrderFlow.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class OutboxService {
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+    
+    @Value("${app.outbox.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+    
+    @Value("${app.outbox.max-backoff-ms:600000}")
+    private long maxBackoffMs;
+    
+    @Value("${app.outbox.lease-ms:60000}")
+    private long leaseMs;
+    
+    /**
+     * Record a side effect for the order in the caller's transaction.
+     * Must be called inside the transaction that changes the order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Order order, OutboxEvent.EventType eventType) {
+        enqueueAll(List.of(order.getId()), eventType);
+    }
+    
+    /**
+     * Record the same side effect for many orders with one INSERT ... SELECT statement.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(Collection<Long> orderIds, OutboxEvent.EventType eventType) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        
+        int inserted = outboxEventRepository.insertForOrders(orderIds, eventType.name(), LocalDateTime.now());
+        
+        log.info("Enqueued {} outbox event(s) of type {}", inserted, eventType);
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent(inserted));
+    }
+    
+    /**
+     * Record events that carry their own payload, one row per (aggregate id, payload) pair, in the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueuePayloads(OutboxEvent.EventType eventType, List<Map.Entry<Long, String>> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = payloads.stream()
+                .map(payload -> OutboxEvent.builder()
+                        .aggregateId(payload.getKey())
+                        .eventType(eventType)
+                        .payload(payload.getValue())
+                        .availableAt(now)
+                        .build())
+                .toList();
+        outboxEventRepository.saveAll(events);
+        
+        log.debug("Enqueued {} outbox event(s) of type {}", events.size(), eventType);
+        eventPublisher.publishEvent(new OutboxEnqueuedEvent(events.size()));
+    }
+    
+    /**
+     * Replace an event by one event per recipient (same type and aggregate, recipient as payload), so a
+     * failed send is retried for its recipient only. The parent is marked sent in the same transaction.
+     */
+    public void fanOut(OutboxEvent parent, List<String> recipients) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = recipients.stream()
+                .map(recipient -> OutboxEvent.builder()
+                        .aggregateId(parent.getAggregateId())
+                        .eventType(parent.getEventType())
+                        .payload(recipient)
+                        .availableAt(now)
+                        .build())
+                .toList();
+        outboxEventRepository.saveAll(events);
+        outboxEventRepository.markSent(List.of(parent.getId()), now);
+        
+        log.debug("Fanned out outbox event {} to {} recipient(s)", parent.getId(), events.size());
+    }
+    
+    /**
+     * Claim up to batchSize deliverable events for this relay. Claimed rows stay
+     * PROCESSING until marked sent/failed or their lease expires.
+     */
+    public List<OutboxEvent> claimBatch(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> batch = outboxEventRepository.findDeliverable(now, PageRequest.of(0, batchSize));
+        
+        LocalDateTime leaseUntil = now.plusNanos(leaseMs * 1_000_000);
+        for (OutboxEvent event : batch) {
+            event.setStatus(OutboxEvent.OutboxStatus.PROCESSING);
+            event.setAttempts(event.getAttempts() + 1);
+            event.setAvailableAt(leaseUntil);
+        }
+        
+        return batch;
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<Order> loadOrderForDelivery(Long orderId) {
+        return orderRepository.findByIdWithDetails(orderId);
+    }
+    
+    public void markSent(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        outboxEventRepository.markSent(eventIds, LocalDateTime.now());
+    }
+    
+    /**
+     * Schedule another attempt with exponential backoff, or give up after maxAttempts.
+     */
+    public void markFailed(Long eventId, String error) {
+        outboxEventRepository.findById(eventId).ifPresent(event -> {
+            event.setLastError(error != null && error.length() > MAX_ERROR_LENGTH
+                    ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(OutboxEvent.OutboxStatus.FAILED);
+                log.error("Outbox event {} ({} for order {}) failed permanently after {} attempts: {}",
+                        event.getId(), event.getEventType(), event.getAggregateId(), event.getAttempts(), error);
+                return;
+            }
+            
+            long backoff = Math.min(maxBackoffMs, retryBackoffMs << Math.min(event.getAttempts() - 1, 20));
+            event.setStatus(OutboxEvent.OutboxStatus.PENDING);
+            event.setAvailableAt(LocalDateTime.now().plusNanos(backoff * 1_000_000));
+            log.warn("Outbox event {} ({} for order {}) failed on attempt {}, retrying in {} ms: {}",
+                    event.getId(), event.getEventType(), event.getAggregateId(), event.getAttempts(), backoff, error);
+        });
+    }
+    
+    public int purgeSentBefore(LocalDateTime before) {
+        return outboxEventRepository.deleteSentBefore(before);
+    }
+}
@@ -4,7 +4,9 @@ import com.SWD_G4.OrderFlow.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductService {
@@ -16,6 +18,13 @@ public interface ProductService {
      */
     Optional<Product> findById(Long productId);
     
+    /**
+     * Get several products at once: cached ones in one multi-get, the rest in one query
+     * @param productIds the product IDs
+     * @return products found, by ID
+     */
+    Map<Long, Product> findAllById(Collection<Long> productIds);
+    
     /**
      * Get all active products with pagination and cache support
      * @param pageable pagination parameters
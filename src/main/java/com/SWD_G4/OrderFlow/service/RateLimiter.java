@@ -0,0 +1,162 @@
+package com.SWD_G4.OrderFlow.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets per user and per client IP. Buckets live on this node by default; with
+ * app.rate-limit.store=redis they are kept in Redis (one Lua call per check) so the limits
+ * hold across the cluster. If Redis is unreachable the local buckets take over.
+ */
+@Service
+@Slf4j
+public class RateLimiter {
+    
+    public enum Scope {
+        USER, IP
+    }
+    
+    private static final String KEY_PREFIX = "ratelimit::";
+    
+    // KEYS[1] bucket; ARGV capacity, refill tokens per second. Returns 0 when a token was taken,
+    // otherwise the milliseconds until the next token. Uses the Redis clock so nodes need not agree on time.
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1]) " +
+            "local rate = tonumber(ARGV[2]) / 1000 " +
+            "local t = redis.call('TIME') " +
+            "local now = t[1] * 1000 + math.floor(t[2] / 1000) " +
+            "local data = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(data[1]) or capacity " +
+            "local ts = tonumber(data[2]) or now " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate) " +
+            "local wait = 0 " +
+            "if tokens >= 1 then tokens = tokens - 1 else wait = math.ceil((1 - tokens) / rate) end " +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now)) " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + 1000) " +
+            "return wait",
+            Long.class);
+    
+    private final StringRedisTemplate redisTemplate;
+    private final ConcurrentHashMap<String, TokenBucket> localBuckets = new ConcurrentHashMap<>();
+    private final Counter userRejections;
+    private final Counter ipRejections;
+    
+    @Value("${app.rate-limit.store:local}")
+    private String store;
+    
+    @Value("${app.rate-limit.user.capacity:20}")
+    private int userCapacity;
+    
+    @Value("${app.rate-limit.user.refill-per-second:5}")
+    private double userRefillPerSecond;
+    
+    @Value("${app.rate-limit.ip.capacity:60}")
+    private int ipCapacity;
+    
+    @Value("${app.rate-limit.ip.refill-per-second:20}")
+    private double ipRefillPerSecond;
+    
+    public RateLimiter(@Autowired(required = false) StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.userRejections = Counter.builder("orderflow.ratelimit.rejected")
+                .description("Requests rejected by the per-user or per-IP token bucket")
+                .tag("scope", "user")
+                .register(meterRegistry);
+        this.ipRejections = Counter.builder("orderflow.ratelimit.rejected")
+                .description("Requests rejected by the per-user or per-IP token bucket")
+                .tag("scope", "ip")
+                .register(meterRegistry);
+        meterRegistry.gauge("orderflow.ratelimit.local.buckets", localBuckets, ConcurrentHashMap::size);
+    }
+    
+    /**
+     * Take one token from the bucket of the given client.
+     * @return 0 if the request may proceed, otherwise milliseconds until a token is available
+     */
+    public long tryAcquire(Scope scope, String clientId) {
+        int capacity = scope == Scope.USER ? userCapacity : ipCapacity;
+        double refillPerSecond = scope == Scope.USER ? userRefillPerSecond : ipRefillPerSecond;
+        String key = KEY_PREFIX + scope.name().toLowerCase() + "::" + clientId;
+        
+        long waitMs = useRedis()
+                ? acquireRemote(key, capacity, refillPerSecond)
+                : acquireLocal(key, capacity, refillPerSecond);
+        
+        if (waitMs > 0) {
+            (scope == Scope.USER ? userRejections : ipRejections).increment();
+        }
+        return waitMs;
+    }
+    
+    private boolean useRedis() {
+        return redisTemplate != null && "redis".equalsIgnoreCase(store);
+    }
+    
+    private long acquireRemote(String key, int capacity, double refillPerSecond) {
+        try {
+            Long waitMs = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(key),
+                    String.valueOf(capacity), String.valueOf(refillPerSecond));
+            return waitMs != null ? waitMs : 0;
+        } catch (RuntimeException e) {
+            log.warn("Redis rate limiting unavailable, using local bucket for {}: {}", key, e.getMessage());
+            return acquireLocal(key, capacity, refillPerSecond);
+        }
+    }
+    
+    private long acquireLocal(String key, int capacity, double refillPerSecond) {
+        return localBuckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond))
+                .tryAcquire(System.nanoTime());
+    }
+    
+    /**
+     * Drop local buckets that have refilled completely; they behave exactly like a new bucket.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.evict-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        localBuckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+    
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double refillPerNano;
+        private double tokens;
+        private long lastRefill;
+        
+        TokenBucket(int capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / 1_000_000_000d;
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+        
+        synchronized long tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - tokens) / refillPerNano / 1_000_000d));
+        }
+        
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+        
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.dto.response.SalesRollupResponse;
+import com.SWD_G4.OrderFlow.entity.Order;
+import com.SWD_G4.OrderFlow.entity.OrderItem;
+import com.SWD_G4.OrderFlow.entity.SalesRollup;
+import com.SWD_G4.OrderFlow.event.OrderLifecycleEvent;
+import com.SWD_G4.OrderFlow.event.OrderStatusBulkChangedEvent;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import com.SWD_G4.OrderFlow.repository.OrderRepository;
+import com.SWD_G4.OrderFlow.repository.SalesRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains hourly and daily sales rollups per product and category.
+ * A confirmed order adds its items to the buckets of its creation time; cancelling a
+ * confirmed order subtracts them again. Runs inside the order transaction, so the
+ * rollups commit or roll back together with the status change.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesRollupService {
+    
+    private final SalesRollupRepository salesRollupRepository;
+    private final OrderRepository orderRepository;
+    
+    @Value("${app.reports.max-range-days:366}")
+    private long maxRangeDays;
+    
+    // Keyed on the status change rather than the event type, so a florist's STATUS_CHANGED to
+    // CONFIRMED counts just like a COD confirmation and the bulk path below
+    @EventListener
+    public void on(OrderLifecycleEvent event) {
+        if (event.previousStatus() == Order.OrderStatus.PENDING && event.status() == Order.OrderStatus.CONFIRMED) {
+            apply(List.of(event.orderId()), 1);
+        } else if (event.previousStatus() == Order.OrderStatus.CONFIRMED
+                && event.status() == Order.OrderStatus.CANCELLED) {
+            apply(List.of(event.orderId()), -1);
+        }
+    }
+    
+    @EventListener
+    public void on(OrderStatusBulkChangedEvent event) {
+        if (event.from() == Order.OrderStatus.PENDING && event.to() == Order.OrderStatus.CONFIRMED) {
+            apply(event.orderIds(), 1);
+        } else if (event.from() == Order.OrderStatus.CONFIRMED && event.to() == Order.OrderStatus.CANCELLED) {
+            apply(event.orderIds(), -1);
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public List<SalesRollupResponse> getSales(SalesRollup.Grain grain, SalesRollup.Dimension dimension,
+                                              Long dimensionId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to) || Duration.between(from, to).toDays() > maxRangeDays) {
+            throw new AppException(ErrorCode.INVALID_REPORT_RANGE);
+        }
+        
+        return salesRollupRepository.findRange(grain, dimension, dimensionId, from, to).stream()
+                .map(rollup -> SalesRollupResponse.builder()
+                        .grain(rollup.getGrain())
+                        .bucketStart(rollup.getBucketStart())
+                        .dimension(rollup.getDimension())
+                        .dimensionId(rollup.getDimensionId())
+                        .revenue(rollup.getRevenue())
+                        .units(rollup.getUnits())
+                        .orderCount(rollup.getOrderCount())
+                        .build())
+                .toList();
+    }
+    
+    private void apply(Collection<Long> orderIds, int sign) {
+        List<Order> orders = orderRepository.findAllWithUserByIdIn(orderIds);
+        LocalDateTime now = LocalDateTime.now();
+        
+        // Fold every item into one delta per bucket so each row is touched once per batch
+        Map<RollupKey, SalesRollup> deltas = new HashMap<>();
+        for (Order order : orders) {
+            Set<RollupKey> countedForOrder = new HashSet<>();
+            for (OrderItem item : order.getOrderItems()) {
+                Long categoryId = item.getProduct().getCategory() != null
+                        ? item.getProduct().getCategory().getId() : null;
+                for (SalesRollup.Grain grain : SalesRollup.Grain.values()) {
+                    LocalDateTime bucket = bucketStart(order.getCreatedAt(), grain);
+                    add(deltas, countedForOrder, new RollupKey(grain, bucket, SalesRollup.Dimension.PRODUCT,
+                            item.getProduct().getId()), item, sign, now);
+                    if (categoryId != null) {
+                        add(deltas, countedForOrder, new RollupKey(grain, bucket, SalesRollup.Dimension.CATEGORY,
+                                categoryId), item, sign, now);
+                    }
+                }
+            }
+        }
+        
+        salesRollupRepository.upsertDeltas(deltas.values());
+        log.debug("Applied {} rollup delta(s) for {} order(s)", deltas.size(), orders.size());
+    }
+    
+    private void add(Map<RollupKey, SalesRollup> deltas, Set<RollupKey> countedForOrder, RollupKey key,
+                     OrderItem item, int sign, LocalDateTime now) {
+        SalesRollup delta = deltas.computeIfAbsent(key, k -> SalesRollup.builder()
+                .grain(k.grain())
+                .bucketStart(k.bucketStart())
+                .dimension(k.dimension())
+                .dimensionId(k.dimensionId())
+                .revenue(BigDecimal.ZERO)
+                .units(0L)
+                .orderCount(0L)
+                .updatedAt(now)
+                .build());
+        
+        delta.setRevenue(delta.getRevenue().add(item.getTotalPrice().multiply(BigDecimal.valueOf(sign))));
+        delta.setUnits(delta.getUnits() + (long) sign * item.getQuantity());
+        // An order with two items in the same category still counts once for that bucket
+        if (countedForOrder.add(key)) {
+            delta.setOrderCount(delta.getOrderCount() + sign);
+        }
+    }
+    
+    private static LocalDateTime bucketStart(LocalDateTime time, SalesRollup.Grain grain) {
+        return grain == SalesRollup.Grain.HOUR
+                ? time.truncatedTo(ChronoUnit.HOURS)
+                : time.truncatedTo(ChronoUnit.DAYS);
+    }
+    
+    private record RollupKey(SalesRollup.Grain grain, LocalDateTime bucketStart,
+                             SalesRollup.Dimension dimension, Long dimensionId) {
+    }
+}
@@ -0,0 +1,134 @@
+package com.SWD_G4.OrderFlow.service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel. Scheduling a deadline and expiring it cost O(1) no matter how many
+ * are pending: near deadlines sit in the bucket of their tick, far ones in coarser overflow wheels
+ * whose buckets cascade down as time reaches them. Precision is one tick.
+ * Items are keys: adding one again replaces its deadline, and cancelling marks its entry so the
+ * bucket drops it when reached.
+ * <p>
+ * Not thread-safe: one thread adds and advances.
+ */
+public final class TimingWheel<T> {
+    
+    private final long tickMs;
+    private final int wheelSize;
+    private final long intervalMs;
+    private final ArrayDeque<Entry<T>>[] buckets;
+    // Pending entry per item; only used on the root wheel
+    private final Map<T, Entry<T>> entries = new HashMap<>();
+    // Start of the current tick, always a multiple of tickMs
+    private long currentTime;
+    private TimingWheel<T> overflow;
+    private long size;
+    
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.intervalMs = tickMs * wheelSize;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.currentTime = startMs - (startMs % tickMs);
+    }
+    
+    /**
+     * @return false if the deadline falls within the current tick; the caller should expire it right away
+     */
+    public boolean add(long deadlineMs, T item) {
+        Entry<T> entry = new Entry<>(deadlineMs, item);
+        if (!add(entry)) {
+            return false;
+        }
+        Entry<T> previous = entries.put(item, entry);
+        if (previous != null) {
+            previous.cancelled = true;
+        } else {
+            size++;
+        }
+        return true;
+    }
+    
+    /**
+     * Drop the pending deadline of item.
+     * @return false if the item had none (never added, already expired or cancelled)
+     */
+    public boolean cancel(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancelled = true;
+        size--;
+        return true;
+    }
+    
+    /**
+     * Move time forward to nowMs, handing every item whose deadline has passed to onExpired.
+     */
+    public void advance(long nowMs, Consumer<T> onExpired) {
+        advanceTo(nowMs, this, item -> {
+            size--;
+            onExpired.accept(item);
+        });
+    }
+    
+    public long size() {
+        return size;
+    }
+    
+    private boolean add(Entry<T> entry) {
+        if (entry.deadlineMs < currentTime + tickMs) {
+            return false;
+        }
+        if (entry.deadlineMs < currentTime + intervalMs) {
+            bucket(entry.deadlineMs).add(entry);
+            return true;
+        }
+        if (overflow == null) {
+            overflow = new TimingWheel<>(intervalMs, wheelSize, currentTime);
+        }
+        return overflow.add(entry);
+    }
+    
+    private void advanceTo(long timeMs, TimingWheel<T> root, Consumer<T> onExpired) {
+        while (timeMs >= currentTime + tickMs) {
+            currentTime += tickMs;
+            if (overflow != null) {
+                overflow.advanceTo(currentTime, root, onExpired);
+            }
+            
+            // Entries of a coarser wheel move down to a finer bucket; on the finest wheel they are due
+            ArrayDeque<Entry<T>> bucket = bucket(currentTime);
+            Entry<T> entry;
+            while ((entry = bucket.poll()) != null) {
+                if (!entry.cancelled && !root.add(entry)) {
+                    root.entries.remove(entry.item, entry);
+                    onExpired.accept(entry.item);
+                }
+            }
+        }
+    }
+    
+    private ArrayDeque<Entry<T>> bucket(long timeMs) {
+        return buckets[(int) ((timeMs / tickMs) % wheelSize)];
+    }
+    
+    private static final class Entry<T> {
+        final long deadlineMs;
+        final T item;
+        boolean cancelled;
+        
+        Entry(long deadlineMs, T item) {
+            this.deadlineMs = deadlineMs;
+            this.item = item;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.SWD_G4.OrderFlow.constant.PredefinedRole;
 import com.SWD_G4.OrderFlow.dto.request.NotificationMessage;
 import com.SWD_G4.OrderFlow.entity.Order;
 import com.SWD_G4.OrderFlow.entity.User;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
 import com.SWD_G4.OrderFlow.repository.UserRepository;
 import com.SWD_G4.OrderFlow.service.NotificationService;
 import lombok.RequiredArgsConstructor;
@@ -20,8 +22,10 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -51,47 +55,57 @@ public class NotificationServiceImpl implements NotificationService {
     @Value("${app.notification.email.fallback:true}")
     private boolean emailFallback;
     
+    @Value("${app.notification.kafka.send-timeout-ms:10000}")
+    private long kafkaSendTimeoutMs;
+    
     @Override
-    public void sendFloristNotification(Order order) {
+    public List<String> floristRecipients() {
         if (!notificationEnabled) {
-            log.info("Notifications disabled, skipping florist notification for order: {}", order.getOrderNumber());
-            return;
+            return List.of();
         }
         
         // Get all users with FLORIST role
         List<User> florists = userRepository.findByRoleName(PredefinedRole.FLORIST_ROLE);
+        List<String> emails = new ArrayList<>(florists.size());
+        for (User florist : florists) {
+            if (StringUtils.hasText(florist.getEmail())) {
+                emails.add(florist.getEmail());
+            } else {
+                log.warn("Florist {} (ID: {}) has no email address, skipping notification",
+                        florist.getUsername(), florist.getId());
+            }
+        }
         
         if (florists.isEmpty()) {
-            log.warn("No florists found in database for order: {}. Using fallback email if configured.", order.getOrderNumber());
+            log.warn("No florists found in database. Using fallback email if configured.");
             // Fallback to configured email if no florists found
             if (StringUtils.hasText(fallbackFloristEmail)) {
-                sendNotificationToFlorist(order, fallbackFloristEmail);
-            } else {
-                log.error("No florists found and no fallback email configured for order: {}", order.getOrderNumber());
+                return List.of(fallbackFloristEmail);
             }
+            log.error("No florists found and no fallback email configured");
+        }
+        return emails;
+    }
+    
+    @Override
+    public void sendFloristNotification(Order order, String floristEmail) {
+        if (!notificationEnabled) {
+            log.info("Notifications disabled, skipping florist notification for order: {}", order.getOrderNumber());
             return;
         }
         
-        log.info("Sending florist notification to {} florist(s) for order: {}", florists.size(), order.getOrderNumber());
-        
-        // Send notification to each florist
-        for (User florist : florists) {
-            if (StringUtils.hasText(florist.getEmail())) {
-                sendNotificationToFlorist(order, florist.getEmail());
-            } else {
-                log.warn("Florist {} (ID: {}) has no email address, skipping notification",
-                        florist.getUsername(), florist.getId());
-            }
-        }
+        Delivery delivery = new Delivery();
+        sendNotificationToFlorist(order, floristEmail, delivery);
+        delivery.await(order);
     }
     
     /**
      * Send notification to a single florist (Kafka + Email)
      */
-    private void sendNotificationToFlorist(Order order, String floristEmail) {
+    private void sendNotificationToFlorist(Order order, String floristEmail, Delivery delivery) {
         // Send real-time notification via Kafka
         if (kafkaEnabled) {
-            sendKafkaNotification(order, "FLORIST", floristEmail);
+            sendKafkaNotification(order, "FLORIST", floristEmail, delivery);
         }
         
         // Send email notification (always send if enabled, not just as fallback)
@@ -107,6 +121,7 @@ public class NotificationServiceImpl implements NotificationService {
             } catch (Exception e) {
                 log.error("Failed to send florist email notification for order: {} to email: {}", 
                         order.getOrderNumber(), floristEmail, e);
+                delivery.failed("florist email to " + floristEmail);
             }
         }
     }
@@ -124,9 +139,11 @@ public class NotificationServiceImpl implements NotificationService {
             return;
         }
         
+        Delivery delivery = new Delivery();
+        
 //         Send real-time notification via Kafka
         if (kafkaEnabled) {
-            sendKafkaNotification(order, "CUSTOMER", customer.getEmail());
+            sendKafkaNotification(order, "CUSTOMER", customer.getEmail(), delivery);
         }
         
         // Send email notification (always send if enabled, not just as fallback)
@@ -142,8 +159,11 @@ public class NotificationServiceImpl implements NotificationService {
             } catch (Exception e) {
                 log.error("Failed to send customer email notification for order: {} to email: {}", 
                         order.getOrderNumber(), customer.getEmail(), e);
+                delivery.failed("customer email to " + customer.getEmail());
             }
         }
+        
+        delivery.await(order);
     }
     
     @Override
@@ -159,9 +179,11 @@ public class NotificationServiceImpl implements NotificationService {
             return;
         }
         
+        Delivery delivery = new Delivery();
+        
         // Send real-time notification via Kafka
         if (kafkaEnabled) {
-            sendKafkaNotification(order, "STATUS_UPDATE", customer.getEmail());
+            sendKafkaNotification(order, "STATUS_UPDATE", customer.getEmail(), delivery);
         }
         
         // Send email notification (always send if enabled, not just as fallback)
@@ -177,14 +199,17 @@ public class NotificationServiceImpl implements NotificationService {
             } catch (Exception e) {
                 log.error("Failed to send order status update email notification for order: {} to email: {}", 
                         order.getOrderNumber(), customer.getEmail(), e);
+                delivery.failed("status update email to " + customer.getEmail());
             }
         }
+        
+        delivery.await(order);
     }
     
     /**
      * Send notification via Kafka for real-time processing
      */
-    private void sendKafkaNotification(Order order, String notificationType, String recipientEmail) {
+    private void sendKafkaNotification(Order order, String notificationType, String recipientEmail, Delivery delivery) {
         try {
             NotificationMessage message = buildNotificationMessage(order, notificationType, recipientEmail);
             String topic = getTopicForNotificationType(notificationType);
@@ -207,9 +232,11 @@ public class NotificationServiceImpl implements NotificationService {
                     }
                 }
             });
+            delivery.kafkaSends.add(future);
             
         } catch (Exception e) {
             log.error("Error sending Kafka notification for order: {}", order.getOrderNumber(), e);
+            delivery.failed("kafka " + notificationType);
             // Optional: Fallback to email if Kafka fails and email fallback is enabled
             // Note: Email is already sent independently if emailEnabled is true
             if (emailFallback && !emailEnabled) {
@@ -218,6 +245,38 @@ public class NotificationServiceImpl implements NotificationService {
         }
     }
     
+    /**
+     * Tracks the sends of one notification so the caller (outbox relay) learns about
+     * failures and can retry. Kafka sends are pipelined and awaited together.
+     */
+    private class Delivery {
+        private final List<CompletableFuture<?>> kafkaSends = new ArrayList<>();
+        private final List<String> failures = new ArrayList<>();
+        
+        void failed(String what) {
+            failures.add(what);
+        }
+        
+        void await(Order order) {
+            if (!kafkaSends.isEmpty()) {
+                try {
+                    CompletableFuture.allOf(kafkaSends.toArray(new CompletableFuture[0]))
+                            .get(kafkaSendTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    failures.add("kafka interrupted");
+                } catch (Exception e) {
+                    failures.add("kafka " + e.getMessage());
+                }
+            }
+            
+            if (!failures.isEmpty()) {
+                log.warn("Notification delivery incomplete for order: {} - failed: {}", order.getOrderNumber(), failures);
+                throw new AppException(ErrorCode.NOTIFICATION_DELIVERY_FAILED);
+            }
+        }
+    }
+    
     private NotificationMessage buildNotificationMessage(Order order, String notificationType, String recipientEmail) {
         User customer = order.getUser();
         
@@ -431,6 +490,9 @@ public class NotificationServiceImpl implements NotificationService {
             case CANCELLED:
                 content.append("<p>Your order has been cancelled. If you have any questions, please contact our support team.</p>");
                 break;
+            case FAILED:
+                content.append("<p>We could not complete your order and you have not been charged. Please try again or contact our support team.</p>");
+                break;
             default:
                 content.append("<p>Your order status has been updated to: ").append(order.getStatus()).append("</p>");
         }
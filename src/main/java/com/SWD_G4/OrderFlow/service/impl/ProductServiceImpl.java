@@ -2,11 +2,13 @@ package com.SWD_G4.OrderFlow.service.impl;
 
 import com.SWD_G4.OrderFlow.dto.response.CachedPageData;
 import com.SWD_G4.OrderFlow.entity.Product;
+import com.SWD_G4.OrderFlow.event.ProductPriceChangedEvent;
 import com.SWD_G4.OrderFlow.repository.ProductRepository;
 import com.SWD_G4.OrderFlow.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -17,7 +19,13 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -30,13 +38,16 @@ public class ProductServiceImpl implements ProductService {
     private final ProductRepository productRepository;
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
     
     // Constructor with optional RedisTemplate and ObjectMapper
     public ProductServiceImpl(ProductRepository productRepository, 
                              @Autowired(required = false) RedisTemplate<String, Object> redisTemplate,
                              @Autowired(required = false) @org.springframework.beans.factory.annotation.Qualifier("redisObjectMapper") ObjectMapper redisObjectMapper,
-                             ObjectMapper defaultObjectMapper) {
+                             ObjectMapper defaultObjectMapper,
+                             ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
         this.redisTemplate = redisTemplate;
         // Use Redis ObjectMapper if available, otherwise use default Spring Boot ObjectMapper
         this.objectMapper = redisObjectMapper != null ? redisObjectMapper : defaultObjectMapper;
@@ -87,6 +98,53 @@ public class ProductServiceImpl implements ProductService {
         return product;
     }
     
+    @Override
+    public Map<Long, Product> findAllById(Collection<Long> productIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        Map<Long, Product> products = new HashMap<>();
+        if (ids.isEmpty()) {
+            return products;
+        }
+        
+        // Try cache if Redis is available
+        if (redisTemplate != null) {
+            try {
+                List<String> cacheKeys = ids.stream().map(id -> "products::" + id).toList();
+                List<Object> cachedObjects = redisTemplate.opsForValue().multiGet(cacheKeys);
+                if (cachedObjects != null) {
+                    for (Object cachedObject : cachedObjects) {
+                        if (cachedObject != null) {
+                            Product product = cachedObject instanceof Product
+                                    ? (Product) cachedObject
+                                    : objectMapper.convertValue(cachedObject, Product.class);
+                            products.put(product.getId(), product);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Error reading products from cache, falling back to database: {}", e.getMessage());
+                log.debug("Cache error details: ", e);
+            }
+        }
+        
+        List<Long> missing = ids.stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            log.info("🔍 Cache MISS - Fetching {} of {} products from database", missing.size(), ids.size());
+            for (Product product : productRepository.findAllById(missing)) {
+                products.put(product.getId(), product);
+                if (redisTemplate != null) {
+                    try {
+                        redisTemplate.opsForValue().set("products::" + product.getId(), product, 1, TimeUnit.HOURS);
+                    } catch (Exception e) {
+                        log.warn("Error caching product: {}", e.getMessage());
+                    }
+                }
+            }
+        }
+        
+        return products;
+    }
+    
     @Override
     public Page<Product> findActiveProducts(Pageable pageable) {
         String cacheKey = "productList::" + buildPageCacheKey(pageable);
@@ -234,8 +292,16 @@ public class ProductServiceImpl implements ProductService {
     @CacheEvict(value = {"products", "productList"}, allEntries = true)
     public Product save(Product product) {
         log.info("💾 Saving product: {} - Invalidating ALL cache (products + productList)", product.getId() != null ? product.getId() : "new");
+        BigDecimal previousPrice = previousPrice(product);
         Product savedProduct = productRepository.save(product);
         
+        // Carts holding the product are repriced after commit (CartRepricer)
+        if (previousPrice != null && savedProduct.getPrice() != null
+                && previousPrice.compareTo(savedProduct.getPrice()) != 0) {
+            log.info("Price of product {} changed: {} -> {}", savedProduct.getId(), previousPrice, savedProduct.getPrice());
+            eventPublisher.publishEvent(new ProductPriceChangedEvent(savedProduct.getId(), previousPrice, savedProduct.getPrice()));
+        }
+        
         // Clear pagination cache manually
         clearPaginationCache();
         
@@ -243,6 +309,20 @@ public class ProductServiceImpl implements ProductService {
         return savedProduct;
     }
     
+    /**
+     * Stored price of an existing product: remembered on load for managed entities, read from the
+     * database for detached copies (e.g. from the cache). Null for new products.
+     */
+    private BigDecimal previousPrice(Product product) {
+        if (product.getId() == null) {
+            return null;
+        }
+        if (product.getPersistedPrice() != null) {
+            return product.getPersistedPrice();
+        }
+        return productRepository.findPriceById(product.getId()).orElse(null);
+    }
+    
     @Override
     @CacheEvict(value = {"products", "productList"}, allEntries = true)
     public void deleteById(Long productId) {
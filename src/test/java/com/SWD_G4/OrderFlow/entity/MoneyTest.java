@@ -0,0 +1,90 @@
+package com.SWD_G4.OrderFlow.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    @Test
+    void ofKeepsUpToTwoDecimalsExactly() {
+        assertThat(Money.of(new BigDecimal("12.5")).minorUnits()).isEqualTo(1250);
+        assertThat(Money.of(new BigDecimal("19.99")).minorUnits()).isEqualTo(1999);
+        assertThat(Money.of(new BigDecimal("3.100")).minorUnits()).isEqualTo(310);
+        assertThat(Money.of(BigDecimal.ZERO)).isSameAs(Money.ZERO);
+    }
+
+    @Test
+    void ofRejectsMoreThanTwoDecimals() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("0.001")))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void ofRejectsAmountsBeyondLong() {
+        BigDecimal tooLarge = BigDecimal.valueOf(Long.MAX_VALUE);
+        assertThatThrownBy(() -> Money.of(tooLarge))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void arithmeticThrowsOnOverflow() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> max.plus(Money.ofMinor(1))).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> max.times(2)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MIN_VALUE).minus(Money.ofMinor(1)))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.ofMinor(Long.MIN_VALUE).negate())
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void minusAndNegate() {
+        Money price = Money.of(new BigDecimal("10.00"));
+        Money discount = Money.of(new BigDecimal("2.50"));
+
+        assertThat(price.minus(discount)).isEqualTo(Money.of(new BigDecimal("7.50")));
+        assertThat(discount.minus(price)).isEqualTo(Money.of(new BigDecimal("-7.50")));
+        assertThat(price.negate().minorUnits()).isEqualTo(-1000);
+        assertThat(price.minus(price).isZero()).isTrue();
+    }
+
+    @Test
+    void timesAndPlus() {
+        Money unitPrice = Money.of(new BigDecimal("0.10"));
+
+        assertThat(unitPrice.times(3).plus(Money.ofMinor(70))).isEqualTo(Money.ofMinor(100));
+    }
+
+    @Test
+    void toBigDecimalHasScaleTwo() {
+        BigDecimal amount = Money.ofMinor(1050).toBigDecimal();
+
+        assertThat(amount.scale()).isEqualTo(Money.SCALE);
+        assertThat(amount).isEqualByComparingTo("10.50");
+        assertThat(Money.ofMinor(5).toString()).isEqualTo("0.05");
+    }
+
+    @Test
+    void converterRoundTrips() {
+        MoneyConverter converter = new MoneyConverter();
+        Money money = Money.of(new BigDecimal("123.45"));
+
+        BigDecimal column = converter.convertToDatabaseColumn(money);
+        assertThat(column).isEqualTo(new BigDecimal("123.45"));
+        assertThat(converter.convertToEntityAttribute(column)).isEqualTo(money);
+        assertThat(converter.convertToEntityAttribute(new BigDecimal("7"))).isEqualTo(Money.ofMinor(700));
+    }
+
+    @Test
+    void converterPassesNullThrough() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+    }
+}
@@ -0,0 +1,107 @@
+package com.SWD_G4.OrderFlow.repository;
+
+import com.SWD_G4.OrderFlow.dto.response.OrderResponse;
+import com.SWD_G4.OrderFlow.entity.*;
+import com.SWD_G4.OrderFlow.mapper.OrderMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class OrderRepositoryTest {
+
+    private static final int ORDER_COUNT = 10;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    private Statistics statistics;
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = entityManager.persist(User.builder()
+                .username("customer")
+                .password("secret")
+                .firstName("Jane")
+                .lastName("Doe")
+                .build());
+
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = entityManager.persist(Order.builder()
+                    .orderNumber("ORD-" + i)
+                    .user(customer)
+                    .totalAmount(new BigDecimal("30.00"))
+                    .status(Order.OrderStatus.PENDING)
+                    .paymentMethod(PaymentMethod.COD)
+                    .build());
+
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                Product product = entityManager.persist(Product.builder()
+                        .name("Product " + i + "-" + j)
+                        .price(new BigDecimal("10.00"))
+                        .stockQuantity(100)
+                        .build());
+
+                entityManager.persist(OrderItem.builder()
+                        .order(order)
+                        .product(product)
+                        .quantity(1)
+                        .unitPrice(new BigDecimal("10.00"))
+                        .totalPrice(new BigDecimal("10.00"))
+                        .build());
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void customerOrderListUsesFixedNumberOfStatements() {
+        List<OrderResponse> responses = orderRepository.findByUserIdOrderByCreatedAtDesc(customer.getId()).stream()
+                .map(orderMapper::toOrderResponse)
+                .toList();
+
+        assertThat(responses).hasSize(ORDER_COUNT);
+        assertThat(responses).allSatisfy(response -> {
+            assertThat(response.getUserName()).isEqualTo("Jane Doe");
+            assertThat(response.getOrderItems()).hasSize(ITEMS_PER_ORDER)
+                    .allSatisfy(item -> assertThat(item.getProductName()).isNotNull());
+        });
+
+        // orders + user, one batch of items, one batch of products
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void orderDetailIsLoadedWithOneStatement() {
+        Long orderId = orderRepository.findByUserIdOrderByCreatedAtDesc(customer.getId()).get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        OrderResponse response = orderMapper.toOrderResponse(orderRepository.findByIdWithDetails(orderId).orElseThrow());
+
+        assertThat(response.getOrderItems()).hasSize(ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,121 @@
+package com.SWD_G4.OrderFlow.service;
+
+import com.SWD_G4.OrderFlow.dto.request.CartOperation;
+import com.SWD_G4.OrderFlow.entity.Product;
+import com.SWD_G4.OrderFlow.exception.AppException;
+import com.SWD_G4.OrderFlow.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CartServiceBatchTest {
+
+    @Test
+    void replaysOperationsInOrderOnTopOfTheCart() {
+        Map<Long, Integer> current = Map.of(1L, 2, 2L, 5);
+
+        Map<Long, Integer> planned = CartService.planBatch(current, List.of(
+                operation(CartOperation.Type.ADD, 1L, 3),
+                operation(CartOperation.Type.SET, 2L, 1),
+                operation(CartOperation.Type.ADD, 3L, 4),
+                operation(CartOperation.Type.REMOVE, 1L, null)));
+
+        assertThat(planned).containsExactly(Map.entry(1L, 0), Map.entry(2L, 1), Map.entry(3L, 4));
+    }
+
+    @Test
+    void repeatedProductIdsBuildOnEachOther() {
+        Map<Long, Integer> planned = CartService.planBatch(Map.of(1L, 1), List.of(
+                operation(CartOperation.Type.ADD, 1L, 2),
+                operation(CartOperation.Type.ADD, 1L, 3),
+                operation(CartOperation.Type.REMOVE, 1L, null),
+                operation(CartOperation.Type.ADD, 1L, 1)));
+
+        assertThat(planned).containsExactly(Map.entry(1L, 1));
+    }
+
+    @Test
+    void setZeroRemovesAndIsNotChecked() {
+        Map<Long, Integer> current = Map.of(1L, 2);
+        Map<Long, Integer> planned = CartService.planBatch(current, List.of(
+                operation(CartOperation.Type.SET, 1L, 0)));
+
+        assertThat(planned).containsExactly(Map.entry(1L, 0));
+        assertThat(CartService.productsToCheck(planned)).isEmpty();
+        // A removed product needs no product row at all
+        CartService.validateBatch(planned, current, Map.of());
+    }
+
+    @Test
+    void addBelowOneIsRejected() {
+        assertThatThrownBy(() -> CartService.planBatch(Map.of(), List.of(
+                operation(CartOperation.Type.ADD, 1L, 0))))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVALID_CART_OPERATION));
+        assertThatThrownBy(() -> CartService.planBatch(Map.of(), List.of(
+                operation(CartOperation.Type.ADD, 1L, null))))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVALID_CART_OPERATION));
+    }
+
+    @Test
+    void setWithoutQuantityIsRejected() {
+        assertThatThrownBy(() -> CartService.planBatch(Map.of(), List.of(
+                operation(CartOperation.Type.SET, 1L, null))))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVALID_CART_OPERATION));
+    }
+
+    @Test
+    void inactiveProductMayShrinkButNotGrow() {
+        Map<Long, Integer> current = Map.of(1L, 3);
+        Map<Long, Product> products = Map.of(1L, product(1L, false, 10));
+
+        CartService.validateBatch(Map.of(1L, 2), current, products);
+        CartService.validateBatch(Map.of(1L, 3), current, products);
+
+        assertThatThrownBy(() -> CartService.validateBatch(Map.of(1L, 4), current, products))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.PRODUCT_NOT_AVAILABLE));
+    }
+
+    @Test
+    void missingProductAndShortStockAreRejected() {
+        assertThatThrownBy(() -> CartService.validateBatch(Map.of(1L, 1), Map.of(), Map.of()))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.PRODUCT_NOT_FOUND));
+
+        Map<Long, Product> products = Map.of(1L, product(1L, true, 2));
+        assertThatThrownBy(() -> CartService.validateBatch(Map.of(1L, 3), Map.of(), products))
+                .isInstanceOfSatisfying(AppException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INSUFFICIENT_STOCK));
+    }
+
+    @Test
+    void productsToCheckSkipsRemovedLines() {
+        Map<Long, Integer> planned = CartService.planBatch(Map.of(1L, 1), List.of(
+                operation(CartOperation.Type.REMOVE, 1L, null),
+                operation(CartOperation.Type.ADD, 2L, 1)));
+
+        assertThat(CartService.productsToCheck(planned)).containsExactly(2L);
+    }
+
+    private static CartOperation operation(CartOperation.Type type, Long productId, Integer quantity) {
+        return CartOperation.builder().type(type).productId(productId).quantity(quantity).build();
+    }
+
+    private static Product product(Long id, boolean active, int stock) {
+        return Product.builder()
+                .id(id)
+                .name("Product " + id)
+                .price(new BigDecimal("10.00"))
+                .stockQuantity(stock)
+                .isActive(active)
+                .build();
+    }
+}
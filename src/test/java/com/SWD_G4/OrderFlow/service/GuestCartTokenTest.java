@@ -0,0 +1,72 @@
+package com.SWD_G4.OrderFlow.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GuestCartTokenTest {
+
+    private static final String SIGNER_KEY = "jwt-signer-key-used-for-access-tokens-0123456789";
+
+    private final GuestCartToken token = new GuestCartToken("", SIGNER_KEY);
+
+    @Test
+    void verifiesIssuedCookie() {
+        GuestCartToken.Issued issued = token.issue();
+
+        assertThat(token.verify(issued.cookieValue())).isEqualTo(issued.guestId());
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String cookie = token.issue().cookieValue();
+        char last = cookie.charAt(cookie.length() - 1);
+        String tampered = cookie.substring(0, cookie.length() - 1) + (last == 'A' ? 'B' : 'A');
+
+        assertThat(token.verify(tampered)).isNull();
+    }
+
+    @Test
+    void rejectsOtherGuestIdWithValidSignature() {
+        GuestCartToken.Issued issued = token.issue();
+        String signature = issued.cookieValue().substring(issued.guestId().length() + 1);
+
+        assertThat(token.verify("someoneelse." + signature)).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCookies() {
+        String cookie = token.issue().cookieValue();
+
+        assertThat(token.verify(null)).isNull();
+        assertThat(token.verify("")).isNull();
+        assertThat(token.verify(cookie.replace(".", ""))).isNull();
+        // Empty id
+        assertThat(token.verify(cookie.substring(cookie.indexOf('.')))).isNull();
+        // Empty signature
+        assertThat(token.verify(cookie.substring(0, cookie.indexOf('.') + 1))).isNull();
+    }
+
+    @Test
+    void rejectsCookieSignedWithAnotherSecret() {
+        GuestCartToken other = new GuestCartToken("another-secret", SIGNER_KEY);
+
+        assertThat(token.verify(other.issue().cookieValue())).isNull();
+    }
+
+    @Test
+    void doesNotSignWithTheJwtKeyItself() throws Exception {
+        String guestId = token.issue().guestId();
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SIGNER_KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String signedWithJwtKey = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(guestId.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(token.verify(guestId + "." + signedWithJwtKey)).isNull();
+    }
+}
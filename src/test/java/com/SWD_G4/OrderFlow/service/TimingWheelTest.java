@@ -0,0 +1,105 @@
+package com.SWD_G4.OrderFlow.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Time is whatever the test passes in, so the wheel runs on a fake clock
+class TimingWheelTest {
+
+    private static final long TICK_MS = 10;
+    private static final int WHEEL_SIZE = 8;
+
+    @Test
+    void expiresInTheTickOfItsDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 1000);
+        List<String> expired = new ArrayList<>();
+
+        assertThat(wheel.add(1025, "order")).isTrue();
+
+        wheel.advance(1019, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(1020, expired::add);
+        assertThat(expired).containsExactly("order");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rejectsDeadlineWithinTheCurrentTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 1000);
+
+        assertThat(wheel.add(1005, "due")).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cascadesFarDeadlinesThroughOverflowWheels() {
+        // Level 0 spans 80 ms, level 1 640 ms, so 3000 ms sits two overflow levels up
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        Map<String, Long> expiredAt = new HashMap<>();
+
+        wheel.add(100, "near");
+        wheel.add(3000, "far");
+        assertThat(wheel.size()).isEqualTo(2);
+
+        for (long now = TICK_MS; now <= 4000; now += TICK_MS) {
+            long time = now;
+            wheel.advance(now, item -> expiredAt.put(item, time));
+        }
+
+        assertThat(expiredAt).containsEntry("near", 100L).containsEntry("far", 3000L);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void expiresEverythingDueInOneLargeAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        List<String> expired = new ArrayList<>();
+
+        wheel.add(3000, "far");
+        wheel.advance(10_000, expired::add);
+
+        assertThat(expired).containsExactly("far");
+    }
+
+    @Test
+    void cancelsEntryThatAlreadyCascadedDown() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        List<String> expired = new ArrayList<>();
+
+        wheel.add(3000, "far");
+        // By now the entry has moved from the top wheel into the finest one
+        wheel.advance(2990, expired::add);
+        assertThat(expired).isEmpty();
+
+        assertThat(wheel.cancel("far")).isTrue();
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.cancel("far")).isFalse();
+
+        wheel.advance(5000, expired::add);
+        assertThat(expired).isEmpty();
+    }
+
+    @Test
+    void addingAgainReplacesTheDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        List<String> expired = new ArrayList<>();
+
+        wheel.add(500, "order");
+        wheel.add(900, "order");
+        assertThat(wheel.size()).isEqualTo(1);
+
+        wheel.advance(890, expired::add);
+        assertThat(expired).isEmpty();
+
+        wheel.advance(900, expired::add);
+        assertThat(expired).containsExactly("order");
+        assertThat(wheel.cancel("order")).isFalse();
+    }
+}